@@ -0,0 +1,95 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * BoxConsistency narrows the variables of a constraint g(x) in rhs
+ * one at a time: with the other variables fixed to their domains, g is
+ * a function of one variable, and its leftmost and rightmost zeros of
+ * g - rhs, found by IntervalNewton, are the new bounds.
+ * <p>
+ * This is much stronger than the HC4 decomposition into IANarrow
+ * primitives when a variable occurs several times in g: the primitives
+ * narrow each occurrence as if it were another variable, the Newton
+ * search narrows the variable itself. It costs a Newton search per
+ * bound; <code>maxBoxes</code> bounds each search, and
+ * <code>tolerance</code> is the width of the boxes it gives up
+ * splitting at.
+ * <p>
+ * It is a NarrowingOperator, so a Propagator can revise it together
+ * with the primitive ones. g and the partial derivatives get the
+ * domains in the order of the variables. They may be partial (sqrt,
+ * log): where they are EMPTY the Newton steps only bisect, so a domain
+ * is reported EMPTY only when g - rhs has no zero in it.
+ */
+public class BoxConsistency extends NarrowingOperator {
+
+	private final IntervalBoxFunction g;
+	private final IntervalBoxFunction[] gradient;
+	private final RealInterval rhs;
+	private final double tolerance;
+	private final int maxBoxes;
+
+	/**
+	 * @param gradient the partial derivatives of g, one per variable
+	 */
+	public BoxConsistency(int[] variables, IntervalBoxFunction g, IntervalBoxFunction[] gradient,
+			RealInterval rhs, double tolerance, int maxBoxes) {
+		super(variables);
+		if (gradient.length != variables.length)
+			throw new IllegalArgumentException("BoxConsistency(" + gradient.length + " partial derivatives): must have "
+					+ variables.length + ", one per variable");
+		if (!(tolerance >= 0))
+			throw new IllegalArgumentException("BoxConsistency(tolerance=" + tolerance + "): must have tolerance>=0");
+		if (maxBoxes < 1)
+			throw new IllegalArgumentException("BoxConsistency(maxBoxes=" + maxBoxes + "): must have maxBoxes>=1");
+		this.g = g;
+		this.gradient = gradient.clone();
+		this.rhs = rhs;
+		this.tolerance = tolerance;
+		this.maxBoxes = maxBoxes;
+	}
+
+	@Override
+	public NarrowingStatus contract(RealInterval[] args) {
+		if (rhs.isEmpty())
+			return NarrowingStatus.EMPTY;
+		RealInterval[] x = args.clone();
+		boolean narrowed = false;
+		for (int i = 0; i < x.length; i++) {
+			IntervalNewton newton = new IntervalNewton(new Projection(x, i, g, rhs),
+					new Projection(x, i, gradient[i], null), tolerance);
+			RealInterval xi = newton.rootHull(x[i], maxBoxes);
+			if (xi.isEmpty())
+				return NarrowingStatus.EMPTY;
+			if (xi.lo > x[i].lo || xi.hi < x[i].hi) {
+				x[i] = xi;
+				narrowed = true;
+			}
+		}
+		if (!narrowed)
+			return NarrowingStatus.UNCHANGED;
+		System.arraycopy(x, 0, args, 0, x.length);
+		return NarrowingStatus.NARROWED;
+	}
+
+	// t -> f(x with x[i] = t) - rhs
+	private static final class Projection implements IntervalFunction {
+		private final RealInterval[] x;
+		private final int i;
+		private final IntervalBoxFunction f;
+		private final RealInterval rhs;
+
+		Projection(RealInterval[] x, int i, IntervalBoxFunction f, RealInterval rhs) {
+			this.x = x;
+			this.i = i;
+			this.f = f;
+			this.rhs = rhs;
+		}
+
+		public RealInterval value(RealInterval t) {
+			RealInterval[] y = x.clone();
+			y[i] = t;
+			RealInterval v = f.value(y);
+			return rhs == null ? v : IAMath.sub(v, rhs);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BranchAndBoundOptimizer finds the global minimum of a function over
+ * a box, rigorously as far as the interval extension of the function
+ * is.
+ * <p>
+ * Every box is bounded by the enclosure f(box) and discarded if its
+ * lower bound is above the incumbent, the least upper bound of f found
+ * so far (f at the box midpoints). The other boxes are bisected along
+ * the widest side until they are narrower than the box tolerance, or
+ * f on them is narrower than the value tolerance; they are the
+ * candidate minimizers.
+ * <p>
+ * The boxes are searched by fork/join tasks, one per box, so idle
+ * workers steal the untouched halves of the busy ones. The incumbent
+ * is the only state written by all of them: a double in an AtomicLong,
+ * read without locks and changed by compare-and-set only when it
+ * improves, which gets rare quickly.
+ * <p>
+ * The optimizer keeps no state between calls and can be shared.
+ */
+public class BranchAndBoundOptimizer {
+
+	private final IntervalBoxFunction f;
+	private final double boxTolerance, valueTolerance;
+
+	/**
+	 * @param boxTolerance boxes with all sides this narrow are not split
+	 * @param valueTolerance boxes where f is enclosed this tightly are
+	 *        not split
+	 */
+	public BranchAndBoundOptimizer(IntervalBoxFunction f, double boxTolerance, double valueTolerance) {
+		if (!(boxTolerance >= 0) || !(valueTolerance >= 0))
+			throw new IllegalArgumentException("BranchAndBoundOptimizer(boxTolerance=" + boxTolerance
+					+ ",valueTolerance=" + valueTolerance + "): must have tolerances>=0");
+		this.f = f;
+		this.boxTolerance = boxTolerance;
+		this.valueTolerance = valueTolerance;
+	}
+
+	/**
+	 * the outcome of a minimization
+	 */
+	public static class Result {
+		private final RealInterval minimum;
+		private final List<RealInterval[]> minimizers;
+		private final long boxes;
+
+		Result(RealInterval minimum, List<RealInterval[]> minimizers, long boxes) {
+			this.minimum = minimum;
+			this.minimizers = minimizers;
+			this.boxes = boxes;
+		}
+
+		/**
+		 * encloses the global minimum; EMPTY if f is defined nowhere
+		 */
+		public RealInterval minimum() {
+			return minimum;
+		}
+
+		/**
+		 * the candidate boxes, which together contain all global
+		 * minimizers, the most promising (least lower bound) first
+		 */
+		public List<RealInterval[]> minimizers() {
+			return minimizers;
+		}
+
+		/**
+		 * number of the boxes searched
+		 */
+		public long boxCount() {
+			return boxes;
+		}
+	}
+
+	public Result minimize(RealInterval[] box) {
+		return minimize(box, ForkJoinPool.commonPool());
+	}
+
+	public Result minimize(RealInterval[] box, ForkJoinPool pool) {
+		Search search = new Search();
+		for (RealInterval x : box)
+			if (x.isEmpty())
+				return search.result();
+		pool.invoke(new Branch(search, box.clone()));
+		return search.result();
+	}
+
+	// a box left at a tolerance, with the lower bound of f on it
+	private static final class Candidate {
+		final RealInterval[] box;
+		final double lo;
+
+		Candidate(RealInterval[] box, double lo) {
+			this.box = box;
+			this.lo = lo;
+		}
+	}
+
+	// the state shared by the tasks of one minimize()
+	private static final class Search {
+		final AtomicLong incumbent = new AtomicLong(Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+		final ConcurrentLinkedQueue<Candidate> candidates = new ConcurrentLinkedQueue<Candidate>();
+		final LongAdder boxes = new LongAdder();
+
+		double upper() {
+			return Double.longBitsToDouble(incumbent.get());
+		}
+
+		void offerUpper(double value) {
+			long current;
+			do {
+				current = incumbent.get();
+				if (!(value < Double.longBitsToDouble(current)))
+					return;
+			} while (!incumbent.compareAndSet(current, Double.doubleToRawLongBits(value)));
+		}
+
+		Result result() {
+			double upper = upper();
+			List<Candidate> kept = new ArrayList<Candidate>();
+			for (Candidate c : candidates)
+				if (c.lo <= upper)
+					kept.add(c);
+			Collections.sort(kept, new Comparator<Candidate>() {
+				public int compare(Candidate a, Candidate b) {
+					return Double.compare(a.lo, b.lo);
+				}
+			});
+			List<RealInterval[]> boxes = new ArrayList<RealInterval[]>(kept.size());
+			for (Candidate c : kept)
+				boxes.add(c.box);
+			RealInterval minimum = kept.isEmpty() ? RealInterval.EMPTY
+					: new RealInterval(kept.get(0).lo, upper);
+			return new Result(minimum, Collections.unmodifiableList(boxes), this.boxes.sum());
+		}
+	}
+
+	private final class Branch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final RealInterval[] box;
+
+		Branch(Search search, RealInterval[] box) {
+			this.search = search;
+			this.box = box;
+		}
+
+		@Override
+		protected void compute() {
+			search.boxes.increment();
+			RealInterval y = f.value(box);
+			if (y.isEmpty() || y.lo > search.upper())
+				return;
+
+			int widest = 0;
+			RealInterval[] mid = new RealInterval[box.length];
+			for (int i = 0; i < box.length; i++) {
+				if (box[i].wid() > box[widest].wid())
+					widest = i;
+				double m = RealInterval.split(box[i].lo, box[i].hi, 0.5);
+				mid[i] = new RealInterval(m == m ? m : box[i].lo);
+			}
+			RealInterval ym = f.value(mid);
+			if (!ym.isEmpty())
+				search.offerUpper(ym.hi);
+
+			RealInterval x = box[widest];
+			double c = RealInterval.split(x.lo, x.hi, 0.5);
+			if (x.wid() <= boxTolerance || y.wid() <= valueTolerance || c != c) {
+				search.candidates.add(new Candidate(box, y.lo));
+				return;
+			}
+			RealInterval[] left = box.clone(), right = box.clone();
+			left[widest] = new RealInterval(x.lo, c);
+			right[widest] = new RealInterval(c, x.hi);
+			invokeAll(new Branch(search, left), new Branch(search, right));
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.Arrays;
+
+/**
+ * DomainStore keeps the domains of many variables in two arrays of
+ * bounds, with a trail so that changes can be undone, for depth first
+ * searches: push() marks a choice point, every later change saves the
+ * old bounds of the variable in the trail, and pop() restores them.
+ * <p>
+ * A variable is saved only at its first change after a push(), so a
+ * pop() costs one step per variable changed since, however many times
+ * it changed, and nothing else is copied.
+ * <p>
+ * A DomainStore is not thread-safe.
+ */
+public class DomainStore {
+
+	// package-private like RealInterval.lo/hi
+	double[] lo = new double[16], hi = new double[16];
+	private int size;
+
+	// trail: the variable and its bounds before the change
+	private int[] trailVar = new int[64];
+	private double[] trailLo = new double[64], trailHi = new double[64];
+	private int trailSize;
+
+	// trail size at each choice point
+	private int[] marks = new int[16];
+	private int depth;
+
+	// stamp[v] == epoch: v is saved since the last push()
+	private long[] stamp = new long[16];
+	private long epoch = 1;
+
+	/**
+	 * adds a variable with the given domain
+	 *
+	 * @return the index of the variable
+	 */
+	public int add(RealInterval domain) {
+		if (size == lo.length) {
+			int n = 2 * size;
+			lo = Arrays.copyOf(lo, n);
+			hi = Arrays.copyOf(hi, n);
+			stamp = Arrays.copyOf(stamp, n);
+		}
+		lo[size] = domain.lo;
+		hi[size] = domain.hi;
+		return size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double lo(int variable) {
+		check(variable);
+		return lo[variable];
+	}
+
+	public double hi(int variable) {
+		check(variable);
+		return hi[variable];
+	}
+
+	public RealInterval get(int variable) {
+		check(variable);
+		if (lo[variable] > hi[variable])
+			return RealInterval.EMPTY;
+		return new RealInterval(lo[variable], hi[variable]);
+	}
+
+	/**
+	 * replaces the domain of a variable
+	 */
+	public void set(int variable, RealInterval domain) {
+		check(variable);
+		if (lo[variable] != domain.lo || hi[variable] != domain.hi) {
+			save(variable);
+			lo[variable] = domain.lo;
+			hi[variable] = domain.hi;
+		}
+	}
+
+	/**
+	 * intersects the domain of a variable with [l, h]
+	 *
+	 * @return EMPTY if the intersection is empty (the domain is not
+	 *         changed then)
+	 */
+	public NarrowingStatus narrow(int variable, double l, double h) {
+		check(variable);
+		double nl = Math.max(lo[variable], l), nh = Math.min(hi[variable], h);
+		if (!(nl <= nh))
+			return NarrowingStatus.EMPTY;
+		if (nl == lo[variable] && nh == hi[variable])
+			return NarrowingStatus.UNCHANGED;
+		save(variable);
+		lo[variable] = nl;
+		hi[variable] = nh;
+		return NarrowingStatus.NARROWED;
+	}
+
+	public NarrowingStatus narrow(int variable, RealInterval x) {
+		return narrow(variable, x.lo, x.hi);
+	}
+
+	/**
+	 * marks a choice point
+	 *
+	 * @return the depth before the push
+	 */
+	public int push() {
+		if (depth == marks.length)
+			marks = Arrays.copyOf(marks, 2 * depth);
+		marks[depth] = trailSize;
+		epoch++;
+		return depth++;
+	}
+
+	/**
+	 * undoes the changes since the last push()
+	 */
+	public void pop() {
+		if (depth == 0)
+			throw new IllegalStateException("pop() without push()");
+		int mark = marks[--depth];
+		while (trailSize > mark) {
+			trailSize--;
+			int v = trailVar[trailSize];
+			lo[v] = trailLo[trailSize];
+			hi[v] = trailHi[trailSize];
+		}
+		epoch++; // the variables saved before the popped push() must be saved again
+	}
+
+	/**
+	 * pops back to the given depth, as returned by push()
+	 */
+	public void popTo(int depth) {
+		if (depth < 0 || depth > this.depth)
+			throw new IllegalArgumentException("popTo(" + depth + "): must have 0<=depth<=" + this.depth);
+		while (this.depth > depth)
+			pop();
+	}
+
+	/**
+	 * number of the choice points
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	private void save(int v) {
+		if (depth == 0 || stamp[v] == epoch)
+			return; // nothing to undo to
+		stamp[v] = epoch;
+		if (trailSize == trailVar.length) {
+			int n = 2 * trailSize;
+			trailVar = Arrays.copyOf(trailVar, n);
+			trailLo = Arrays.copyOf(trailLo, n);
+			trailHi = Arrays.copyOf(trailHi, n);
+		}
+		trailVar[trailSize] = v;
+		trailLo[trailSize] = lo[v];
+		trailHi[trailSize] = hi[v];
+		trailSize++;
+	}
+
+	private void check(int variable) {
+		if (variable < 0 || variable >= size)
+			throw new IndexOutOfBoundsException("Variable " + variable + " of " + size);
+	}
+}
@@ -28,19 +28,24 @@ import static net.sourceforge.interval.ia_math.IMathDetails.*;
 public class IAMath
 {
 	// nvp
+	// switches the rounding of the whole JVM; to choose the rounding
+	// of one computation use a RoundingPolicy instead
 	public static void useSimpleRounding(boolean simple) {
 		RMath.simpleRounding = simple;
-	    System.out.println("IAMath simpleRounding:" + simple);
 	}
+
 	public static double wid(RealInterval i) {
-	    	return Math.abs(i.hi() - i.lo());
+	    	return i.wid();
 	 }
+	  /**
+	   * returns RealInterval.EMPTY if a and b do not overlap
+	   */
 	  public static RealInterval intersect(RealInterval a, RealInterval b) {
 		  if (a == null || b == null ||
 				  !a.isIntersects(b)) 
 		  {
 			  //throw new IAIntersectionException(this + " and " + with + " doesn't overlap");
-			  return null;
+			  return RealInterval.EMPTY;
 		  }
 		  double l = max( a.lo, b.lo );
 		  double h = min( a.hi, b.hi );	  	  
@@ -55,29 +60,44 @@ public class IAMath
 	  }
 	 
 	
+  /*
+   * All operations return RealInterval.EMPTY if an argument is empty.
+   */
   public static RealInterval add(RealInterval x, RealInterval y) {
+	  if (isAnyoneEmpty(x, y))
+		  return RealInterval.EMPTY;
 	  double l = RMath.add_lo(x.lo,y.lo);
 	  double h = RMath.add_hi(x.hi,y.hi);
 	  return new RealInterval(l, h);
   }
 
   public static RealInterval add(RealInterval i, double d) {
+	  if (i.isEmpty())
+		  return RealInterval.EMPTY;
 	  return new RealInterval(i.lo + d, i.hi + d);
   }
  
   public static RealInterval sub(RealInterval x, RealInterval y) {
+    if (isAnyoneEmpty(x, y))
+      return RealInterval.EMPTY;
     double l = RMath.sub_lo(x.lo,y.hi);
     double h = RMath.sub_hi(x.hi,y.lo);
     return new RealInterval(l, h);
   }
   public static RealInterval sub(RealInterval x, double y) {
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
     return new RealInterval(x.lo - y, x.hi - y);
   }
   public static RealInterval sub(double x, RealInterval y) {
+	    if (y.isEmpty())
+	      return RealInterval.EMPTY;
 	    return new RealInterval(x - y.hi, x - y.lo);
   }
   //nvp 
   public static RealInterval negate(RealInterval x) {
+	  if (x.isEmpty())
+		  return RealInterval.EMPTY;
 	  return new RealInterval(-x.hi(), -x.lo() );
   }
   
@@ -88,6 +108,8 @@ public class IAMath
   }
   // nvp
   public static RealInterval mul(double x, RealInterval y) {
+	   if (y.isEmpty())
+		   return RealInterval.EMPTY;
 	   double yl = y.lo();
 	   double yu = y.hi();
 	   if (x < 0)
@@ -105,12 +127,14 @@ public class IAMath
     double yu = y.hi();
     double l, h;
     
+    if (isAnyoneEmpty(x, y))
+    	return RealInterval.EMPTY;
     if (xl < 0)
     	if (xu > 0)
     		if (yl < 0)
     			if (yu > 0) { // M * M
     				l = min( RMath.mul_lo(xl, yu), RMath.mul_lo(xu, yl) ); 
-    				h = max( RMath.mul_hi(xl, yl), RMath.mul_lo(xu, yu) );
+    				h = max( RMath.mul_hi(xl, yl), RMath.mul_hi(xu, yu) );
     				return new RealInterval(l, h);
     			}
     			else  		// M * N
@@ -148,7 +172,32 @@ public class IAMath
   }
 
 
+  /**
+   * the same as mul(), by the branch-free min/max of the endpoint
+   * products of RMath instead of the sign case analysis; it wins on
+   * data of random signs, see MulDivBenchmark
+   */
+  public static RealInterval mulBranchFree(RealInterval x, RealInterval y) {
+	  if (isAnyoneEmpty(x, y))
+		  return RealInterval.EMPTY;
+	  return new RealInterval(RMath.mul_lo(x.lo, x.hi, y.lo, y.hi), RMath.mul_hi(x.lo, x.hi, y.lo, y.hi));
+  }
+
   public static RealInterval div(RealInterval x, RealInterval y) throws IAComputationalException {
+	  return div(x, y, false);
+  }
+
+  /**
+   * the same as div(), by the branch-free kernels of RMath where the
+   * divisor does not contain zero, like mulBranchFree()
+   */
+  public static RealInterval divBranchFree(RealInterval x, RealInterval y) throws IAComputationalException {
+	  return div(x, y, true);
+  }
+
+  private static RealInterval div(RealInterval x, RealInterval y, boolean branchFree) {
+	  if (isAnyoneEmpty(x, y))
+		  return RealInterval.EMPTY;
 	  if (x.lo() == 0 && x.hi() == 0)
 		  return zero;
 	  if (y.contains(0)) {
@@ -163,9 +212,82 @@ public class IAMath
 			  else // x/ [0, 0]
 				  throw new IAComputationalException("Division by Zero");
 	  }
+	  if (branchFree)
+		  return new RealInterval(RMath.div_lo(x.lo, x.hi, y.lo, y.hi), RMath.div_hi(x.lo, x.hi, y.lo, y.hi));
 	  return div_non_zero(x, y);
   }
 
+  /**
+   * Extended division: the set { q : q*b = a for some a in x, b in y }.
+   * Unlike div(), a divisor with zero inside does not give the whole
+   * line but keeps the gap around zero, e.g. [1, 2] / [-1, 1] is
+   * [-inf, -1] U [1, inf]. If both x and y contain zero the result is
+   * the whole line; x without zero divided by [0, 0] gives the empty union.
+   */
+  public static IntervalUnion divExtended(RealInterval x, RealInterval y) {
+	  if (isAnyoneEmpty(x, y))
+		  return IntervalUnion.EMPTY;
+	  if (!y.contains(0))
+		  return new IntervalUnion(div(x, y));
+	  if (x.contains(0))
+		  return new IntervalUnion(whole);
+	  double yl = y.lo(), yu = y.hi();
+	  if (yl == 0 && yu == 0)
+		  return IntervalUnion.EMPTY;
+	  // the bound of x nearest to zero divided by the ends of y
+	  double a = x.hi() < 0 ? x.hi() : x.lo();
+	  double neg, pos; // the ends of the half-lines next to the gap
+	  if (a < 0) {
+		  neg = yu > 0 ? RMath.div_hi(a, yu) : Double.NaN;
+		  pos = yl < 0 ? RMath.div_lo(a, yl) : Double.NaN;
+	  } else {
+		  neg = yl < 0 ? RMath.div_hi(a, yl) : Double.NaN;
+		  pos = yu > 0 ? RMath.div_lo(a, yu) : Double.NaN;
+	  }
+	  if (neg != neg)
+		  return new IntervalUnion(new RealInterval(pos, Double.POSITIVE_INFINITY));
+	  if (pos != pos)
+		  return new IntervalUnion(new RealInterval(Double.NEGATIVE_INFINITY, neg));
+	  return IntervalUnion.union(new RealInterval(Double.NEGATIVE_INFINITY, neg),
+			  new RealInterval(pos, Double.POSITIVE_INFINITY));
+  }
+
+  /*
+   * Bulk versions of add/sub/mul/div: res[i] = x[i] op y[i].
+   * The result is written into res (which may be x or y itself),
+   * nothing is allocated per element.
+   */
+  public static void add(IntervalVector x, IntervalVector y, IntervalVector res) {
+	  checkSizes(x, y, res);
+	  RMath.add_lo(x.lo, y.lo, res.lo, 0, res.size());
+	  RMath.add_hi(x.hi, y.hi, res.hi, 0, res.size());
+  }
+
+  public static void sub(IntervalVector x, IntervalVector y, IntervalVector res) {
+	  checkSizes(x, y, res);
+	  if (res != y) {
+		  RMath.sub_lo(x.lo, y.hi, res.lo, 0, res.size());
+		  RMath.sub_hi(x.hi, y.lo, res.hi, 0, res.size());
+		  return;
+	  }
+	  // y is overwritten: lo and hi have to be computed together
+	  final double[] xl = x.lo, xu = x.hi, yl = y.lo, yu = y.hi;
+	  final double[] rl = res.lo, ru = res.hi;
+	  for (int i = 0; i < rl.length; i++) {
+		  double l = RMath.sub_lo(xl[i], yu[i]);
+		  ru[i] = RMath.sub_hi(xu[i], yl[i]);
+		  rl[i] = l;
+	  }
+  }
+
+  public static void mul(IntervalVector x, IntervalVector y, IntervalVector res) {
+	  RoundingPolicy.GLOBAL.mul(x, y, res);
+  }
+
+  public static void div(IntervalVector x, IntervalVector y, IntervalVector res) throws IAComputationalException {
+	  RoundingPolicy.GLOBAL.div(x, y, res);
+  }
+
 
 
 
@@ -208,8 +330,16 @@ public class IAMath
 
   
 // should be moved to RealInterval? 
+	  /**
+	   * the union of x and y if it is an interval, null if they do not
+	   * overlap (IntervalUnion.union() gives the union of any two)
+	   */
 	  public static RealInterval union(RealInterval x, RealInterval y) //throws IAIntersectionException
 	  {
+		  if (x.isEmpty())
+			  return y;
+		  if (y.isEmpty())
+			  return x;
 		  if (x.isIntersects(y))
 		  	return new RealInterval(min(x.lo(), y.lo()), max(x.hi(), y.hi()));
 		  //throw new IAIntersectionException(x + " and " + y + " doesn't overlap");
@@ -226,43 +356,63 @@ public class IAMath
 
 
   public static RealInterval uminus(RealInterval x) {
+	  if (x.isEmpty())
+		  return RealInterval.EMPTY;
 	  return new RealInterval(-x.hi, -x.lo);
   }
   
   
 
   public static RealInterval exp(RealInterval x) {
-    return new RealInterval(RMath.exp_lo(x.lo()), RMath.exp_hi(x.hi()));
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
+    return RMath.exp_lohi(x.lo, x.hi);
   }
 
   public static RealInterval log(RealInterval x) throws IAComputationalException {
-    if (x.hi <= 0) 
-      throw new IAComputationalException("Negative value for log(x=" + x + ")");
+    if (!(x.hi > 0)) // no positive values, or empty
+      return RealInterval.EMPTY;
 
-    double l = x.lo() > 0 ? RMath.log_lo(x.lo) : Double.NEGATIVE_INFINITY; 
-    return new RealInterval(l, RMath.log_hi(x.hi));
+    // log(0) = -infinity
+    return RMath.log_lohi(Math.max(x.lo, 0.0), x.hi);
   }
   public static RealInterval ln(RealInterval x) throws IAComputationalException {
 	  return log(x);
   }
 
   public static RealInterval sin(final RealInterval x) {
-	  RealInterval y = div(x,new RealInterval(RMath.prevfp(2*Math.PI),RMath.nextfp(2*Math.PI)));
-	  RealInterval z = sin2pi(y);
-	  return z;
+	  return sincos(x)[0];
+  }
+
+  /**
+   * {sin(x), cos(x)} at the cost of one of them
+   */
+  public static RealInterval[] sincos(final RealInterval x) {
+	  if (x.isEmpty())
+		  return new RealInterval[] { RealInterval.EMPTY, RealInterval.EMPTY };
+	  if (RMath.simpleRounding) {
+		  RealInterval y = div(x,new RealInterval(RMath.prevfp(2*Math.PI),RMath.nextfp(2*Math.PI)));
+		  return sincos2pi(y);
+	  }
+	  // reduced by the exact multiples of pi/2: tight at any magnitude
+	  RealInterval s = new RealInterval(), c = new RealInterval();
+	  RMathKernels.sincos(x.lo, x.hi, s, c);
+	  return new RealInterval[] { s, c };
   }
 
   public static RealInterval cos(final RealInterval x) {
-    RealInterval y = div(x,new RealInterval(RMath.prevfp(2*Math.PI),RMath.nextfp(2*Math.PI)));
-    RealInterval z = cos2pi(y);
-    return(z);
+	  return sincos(x)[1];
   }
 
   
   public static RealInterval tan(RealInterval x) {
-	  RealInterval y = div(x,new RealInterval(RMath.prevfp(2*Math.PI),RMath.nextfp(2*Math.PI)));
-	  RealInterval z = tan2pi(y);
-	  return(z);
+	  if (x.isEmpty())
+		  return RealInterval.EMPTY;
+	  if (RMath.simpleRounding) {
+		  RealInterval y = div(x,new RealInterval(RMath.prevfp(2*Math.PI),RMath.nextfp(2*Math.PI)));
+		  return tan2pi(y);
+	  }
+	  return RMathKernels.tan(x.lo, x.hi);
   }
   public static RealInterval tg(RealInterval x) {
 	  return tan(x);
@@ -272,22 +422,25 @@ public class IAMath
   }
 
 	public static RealInterval asin(RealInterval x) {
-		RealInterval area = new RealInterval(x);
-		area = intersect(area, one_one);
-		if (area == null)
-			throw new IllegalArgumentException();
-		RealInterval z = 
-			new RealInterval(RMath.asin_lo(area.lo()), RMath.asin_hi(area.hi()));
+		RealInterval area = intersect(x, one_one);
+		if (area.isEmpty())
+			return RealInterval.EMPTY;
+		RealInterval z = RMath.asin_lohi(area.lo(), area.hi());
 		return z;
 		
 	}
 
 	public static RealInterval acos(RealInterval x) {
-		return new RealInterval(RMath.acos_lo(x.hi), RMath.acos_hi(x.lo));
+		RealInterval area = intersect(x, one_one);
+		if (area.isEmpty())
+			return RealInterval.EMPTY;
+		return new RealInterval(RMath.acos_lo(area.hi), RMath.acos_hi(area.lo));
 	}
 
 	public static RealInterval atan(RealInterval x) {
-		return new RealInterval(RMath.atan_lo(x.hi), RMath.atan_hi(x.lo));
+		if (x.isEmpty())
+			return RealInterval.EMPTY;
+		return RMath.atan_lohi(x.lo, x.hi);
 	}
 
 	public static RealInterval arctg(RealInterval r) {
@@ -314,8 +467,13 @@ public class IAMath
 
 
 
-/*
+  /**
+   * a point near the middle of x, finite even if x is unbounded;
+   * EMPTY for an empty x
+   */
   public static RealInterval midpoint(RealInterval x) {
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
     RealInterval z = new RealInterval();
     z.lo = (x.lo + x.hi)/2.0;
     z.hi = z.lo;
@@ -349,6 +507,8 @@ public class IAMath
 
 
   public static RealInterval leftendpoint(RealInterval x) {
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
     RealInterval z = new RealInterval();
     z.lo = x.lo;
     if ((Double.NEGATIVE_INFINITY < z.lo) &&
@@ -364,6 +524,8 @@ public class IAMath
 
 
   public static RealInterval rightendpoint(RealInterval x) {
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
     RealInterval z = new RealInterval();
     z.lo = x.hi;
     if ((Double.NEGATIVE_INFINITY < z.lo) &&
@@ -376,7 +538,6 @@ public class IAMath
      return(z);
     }
   }
-*/
 
   /**
    *  returns (x**y) computed as exp(y*log(x))
@@ -384,6 +545,8 @@ public class IAMath
   public static RealInterval power(RealInterval x, RealInterval y)
     throws IllegalArgumentException
  {
+	  if (isAnyoneEmpty(x, y))
+		  return RealInterval.EMPTY;
 	  if (y.hi == 1 && y.hi == y.lo)
 		  return x;
 	  if (y.hi == 0 && y.hi == y.lo)
@@ -392,19 +555,9 @@ public class IAMath
 		  return new RealInterval(0); // here we know that it is not 0^1 case
 	  
       if (x.hi <= 0) {
-    	  if (y.lo == y.hi) {
-    		  double t1 = Math.pow(x.lo, y.lo);
-    		  double t2 = Math.pow(x.hi, y.lo);
-    		  double min, max;
-    		  if (t1 < t2) {
-    			  min = t1;
-    			  max = t2;
-    		  } else {
-    			  min = t2;
-    			  max = t1;
-    		  }
-    		  return new RealInterval(min, max);
-    	  }
+    	  // x^n, n an integer; x^y of a fractional y has no real value
+    	  if (y.lo == y.hi && y.lo == (int) y.lo)
+    		  return pow(x, y.lo);
     	  // due to log(x): x<=0 not allowed
     	  throw new IllegalArgumentException("power(X,Y): X<=0 not allowed");
       }
@@ -419,15 +572,41 @@ public class IAMath
    * This pow function treats y not as usual interval but as a set of
    * integers. For example, if y = [-2.8, 1.1] it will assume that y
    * contains only -2, -1, 0, 1. So result = x^-2 union x^-1 union x^0 union x^1.
+   * For a fixed a, a^n is monotone in n over the even and over the odd
+   * integers, so only the first and the last two exponents are evaluated.
    */
   public static RealInterval intPow(RealInterval x, RealInterval y) {
-	  RealInterval res = power(x, y.lo());
-	  for (int i = (int)y.lo() + 1; i <= (int)y.hi(); i++) {
-		  RealInterval tmp = power(x, i);
-		  res = new RealInterval( min(res.lo(), tmp.lo()), max(res.hi(), tmp.hi()) );
+	  double nlo = Math.ceil(y.lo()), nhi = Math.floor(y.hi());
+	  if (!(nlo <= nhi) || x.isEmpty()) // no integers in Y
+		  return RealInterval.EMPTY;
+	  RealInterval res = power(x, nlo);
+	  if (nhi > nlo)
+		  res = hull(res, power(x, nhi));
+	  if (x.lo() < 0) { // signs alternate with the parity
+		  if (nhi - nlo > 1)
+			  res = hull(res, power(x, nlo + 1));
+		  if (nhi - nlo > 2)
+			  res = hull(res, power(x, nhi - 1));
 	  }
 	  return res;
   }
+
+  private static RealInterval hull(RealInterval x, RealInterval y) {
+	  return new RealInterval(min(x.lo(), y.lo()), max(x.hi(), y.hi()));
+  }
+
+  /**
+   * returns x*x; unlike mul(x, x) it never contains negative numbers
+   */
+  public static RealInterval sqr(RealInterval x) {
+	  if (x.isEmpty())
+		  return RealInterval.EMPTY;
+	  double a = Math.abs(x.lo), b = Math.abs(x.hi);
+	  RealInterval z = new RealInterval();
+	  z.lo = (x.lo > 0 || x.hi < 0) ? RMath.ipow_lo(min(a, b), 2) : 0.0;
+	  z.hi = RMath.ipow_hi(max(a, b), 2);
+	  return z;
+  }
  
   //nvpanov
   public static RealInterval power(RealInterval x, double y) throws IAComputationalException {
@@ -436,6 +615,8 @@ public class IAMath
 
 	  //nvpanov
   public static RealInterval pow(RealInterval x, double y) throws IAComputationalException {
+	  if (x.isEmpty())
+		  return RealInterval.EMPTY;
 	  if (y%2 == 0)
 		  return evenPower(x, y);
 	  return oddPower(x, y);
@@ -447,6 +628,8 @@ public class IAMath
   public static RealInterval root(RealInterval x, int y) 
     throws IllegalArgumentException
   {
+    if (x.isEmpty())
+      return RealInterval.EMPTY;
     if (y % 2 == 0) {
         if (y == 0)
             throw new IllegalArgumentException("root(X,y): y=0 not allowed");
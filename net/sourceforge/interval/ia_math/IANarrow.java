@@ -23,25 +23,49 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 public class IANarrow {
 
-	private static boolean wasNarrowed(RealInterval newVal, RealInterval oldVal) throws IANarrowingFaildException {
-		if (newVal == null)
+	/*
+	 * The contractX() methods narrow the arguments of a constraint in
+	 * place and report the outcome without exceptions or nulls:
+	 * NARROWED if an interval got narrower, EMPTY if the constraint has
+	 * no solution in the box (the arguments are then left as they are),
+	 * UNCHANGED otherwise. The narrowX() methods do the same but
+	 * return true if narrowed and throw IANarrowingFaildException
+	 * if empty. NARROWED means narrower by any amount, even an ulp;
+	 * NarrowingReport tells by how much, for loops that should stop
+	 * at a minimum improvement.
+	 */
+
+	private static boolean narrowed(NarrowingStatus status) throws IANarrowingFaildException {
+		if (status == NarrowingStatus.EMPTY)
 			throw new IANarrowingFaildException(); // incompatible intervals
-		if (newVal.wid() < oldVal.wid())
-			return true;
-		return false;
+		return status == NarrowingStatus.NARROWED;
 	}
 
-	private static boolean wasNarrowed(	RealInterval one, RealInterval two, 
-											RealInterval new1, RealInterval new2
-									) throws IANarrowingFaildException {
-		return wasNarrowed(new1, one) || wasNarrowed(new2, two);
+	// newVal is a part of oldVal
+	private static boolean isNarrower(RealInterval newVal, RealInterval oldVal) {
+		return newVal.lo > oldVal.lo || newVal.hi < oldVal.hi;
 	}
-	private static boolean wasNarrowed(	RealInterval one, RealInterval two, RealInterval three, 
-										RealInterval new1, RealInterval new2, RealInterval new3
-											) throws IANarrowingFaildException {	
-		return wasNarrowed(new1, one) || wasNarrowed(new2, two) || wasNarrowed(new3, three);
+
+	private static NarrowingStatus status(	RealInterval one, RealInterval two, 
+											RealInterval new1, RealInterval new2) {
+		if (new1.isEmpty() || new2.isEmpty())
+			return NarrowingStatus.EMPTY;
+		if (isNarrower(new1, one) || isNarrower(new2, two))
+			return NarrowingStatus.NARROWED;
+		return NarrowingStatus.UNCHANGED;
 	}
-	public static boolean narrowAdd(RealInterval[] ii) 	throws IANarrowingFaildException {
+	private static NarrowingStatus status(	RealInterval one, RealInterval two, RealInterval three, 
+										RealInterval new1, RealInterval new2, RealInterval new3) {
+		if (new3.isEmpty())
+			return NarrowingStatus.EMPTY;
+		NarrowingStatus s = status(one, two, new1, new2);
+		if (s == NarrowingStatus.UNCHANGED && isNarrower(new3, three))
+			return NarrowingStatus.NARROWED;
+		return s;
+	}
+
+	/* res = a + b */
+	public static NarrowingStatus contractAdd(RealInterval[] ii) {
 		assert ii.length == 3;
 		RealInterval res = ii[0]; 
 		RealInterval a = ii[1];
@@ -50,115 +74,226 @@ public class IANarrow {
 		RealInterval newA   = intersect(sub(res, b), a);
 		RealInterval newB   = intersect(sub(res, a), b);
 		
-		if ( wasNarrowed(res, a, b, newRes, newA, newB) ) {
+		NarrowingStatus s = status(res, a, b, newRes, newA, newB);
+		if (s == NarrowingStatus.NARROWED) {
 			ii[0] = newRes;
 			ii[1] = newA;
 			ii[2] = newB;
-			return true;
 		}
-		return false;
+		return s;
+	}
+	public static boolean narrowAdd(RealInterval[] ii) 	throws IANarrowingFaildException {
+		return narrowed(contractAdd(ii));
 	}
 
-	public static boolean narrowSub(RealInterval[] ii) throws IANarrowingFaildException {
+	/* res = a - b */
+	public static NarrowingStatus contractSub(RealInterval[] ii) {
 		RealInterval tmp[] = new RealInterval[] { ii[1], ii[0], ii[2] };
-		boolean success = narrowAdd(tmp);
-		if (success) {
+		NarrowingStatus s = contractAdd(tmp);
+		if (s == NarrowingStatus.NARROWED) {
 			ii[1] = tmp[0];
 			ii[0] = tmp[1];
 			ii[2] = tmp[2];
 		}
-		return success;
+		return s;
+	}
+	public static boolean narrowSub(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractSub(ii));
 	}
 
 	/* z = x*y */
-	public static boolean narrowMul(RealInterval[] aWayToPassPointersToFunction)
-			throws IANarrowingFaildException {
+	public static NarrowingStatus contractMul(RealInterval[] aWayToPassPointersToFunction) {
 		assert aWayToPassPointersToFunction.length == 3;
 		RealInterval res = aWayToPassPointersToFunction[0], 
 					a = aWayToPassPointersToFunction[1], 
 					b = aWayToPassPointersToFunction[2];
 		RealInterval newRes =intersect(mul(a, b), res);
-		RealInterval newA =  intersect(div(res, b), a);
-		RealInterval newB =  intersect(div(res, a), b);
-		if ( wasNarrowed(res, a, b, newRes, newA, newB) ) {
+		// a factor containing zero splits the quotient in two pieces;
+		// one of them may fall outside the old domain
+		RealInterval newA =  divExtended(res, b).intersect(a).hull();
+		RealInterval newB =  divExtended(res, a).intersect(b).hull();
+		NarrowingStatus s = status(res, a, b, newRes, newA, newB);
+		if (s == NarrowingStatus.NARROWED) {
 			aWayToPassPointersToFunction[0] = newRes;
 			aWayToPassPointersToFunction[1] = newA;
 			aWayToPassPointersToFunction[2] = newB;
-			return true;
 		}
-		return false;			
+		return s;
 	}
-
-	public static boolean narrowDiv(RealInterval[] aWayToPassPointersToFunction)
+	public static boolean narrowMul(RealInterval[] aWayToPassPointersToFunction)
 			throws IANarrowingFaildException {
+		return narrowed(contractMul(aWayToPassPointersToFunction));
+	}
+
+	/* z = x/y */
+	public static NarrowingStatus contractDiv(RealInterval[] aWayToPassPointersToFunction) {
 		assert aWayToPassPointersToFunction.length == 3;
 		RealInterval tmp[] = new RealInterval[] { 	aWayToPassPointersToFunction[1], 
 													aWayToPassPointersToFunction[2], 
 													aWayToPassPointersToFunction[0]  };
-		boolean success = narrowMul(tmp);
-		if (success) {
+		NarrowingStatus s = contractMul(tmp);
+		if (s == NarrowingStatus.NARROWED) {
 			aWayToPassPointersToFunction[1] = tmp[0];
 			aWayToPassPointersToFunction[2] = tmp[1];
 			aWayToPassPointersToFunction[0] = tmp[2];
 		}
-		return success;
+		return s;
+	}
+	public static boolean narrowDiv(RealInterval[] aWayToPassPointersToFunction)
+			throws IANarrowingFaildException {
+		return narrowed(contractDiv(aWayToPassPointersToFunction));
 	}
 
-  public static boolean narrowNegate(RealInterval[] ii) throws IANarrowingFaildException {
+	/* res = -b */
+  public static NarrowingStatus contractNegate(RealInterval[] ii) {
 	  RealInterval res = ii[0], b = ii[1];
-  	  res = intersect(res, uminus(b) );
-  	  b = intersect(b, uminus(res) );
-  	  res = intersect(res, b);
-
-  	  if (wasNarrowed(ii[0], res) || wasNarrowed(ii[1], res)) {
-  		  ii[0] = ii[1] = res;
-  		  return true;
+  	  RealInterval newRes = intersect(res, uminus(b) );
+  	  RealInterval newB = intersect(b, uminus(newRes) );
+  	  NarrowingStatus s = status(res, b, newRes, newB);
+  	  if (s == NarrowingStatus.NARROWED) {
+  		  ii[0] = newRes;
+  		  ii[1] = newB;
   	  }
-  	  return false;
+  	  return s;
+  }
+  public static boolean narrowNegate(RealInterval[] ii) throws IANarrowingFaildException {
+	  return narrowed(contractNegate(ii));
   }
 
-	public static boolean narrowExp(RealInterval[] ii) throws IANarrowingFaildException {
+	/* r = exp(a) */
+	public static NarrowingStatus contractExp(RealInterval[] ii) {
 		RealInterval r = ii[0], a = ii[1];
 		RealInterval newR = intersect(exp(a), r);
 		RealInterval newA = intersect(log(r), a);
-		if ( wasNarrowed(r, a, newR, newA) ) {
+		NarrowingStatus s = status(r, a, newR, newA);
+		if (s == NarrowingStatus.NARROWED) {
 			ii[0] = newR;
 			ii[1] = newA;
-			return true;
 		}
-		return false;
+		return s;
+	}
+	public static boolean narrowExp(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractExp(ii));
 	}
 
-	public static boolean narrowLog(RealInterval[] ii) throws IANarrowingFaildException {
+	/* r = log(a) */
+	public static NarrowingStatus contractLog(RealInterval[] ii) {
 		RealInterval tmp[] = new RealInterval[] { ii[1], ii[0] };
-		boolean success = narrowExp(tmp);
-		if (success) {
+		NarrowingStatus s = contractExp(tmp);
+		if (s == NarrowingStatus.NARROWED) {
 			ii[0] = tmp[1];
 			ii[1] = tmp[0];
-			return true;
 		}
-		return false;
+		return s;
+	}
+	public static boolean narrowLog(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractLog(ii));
+	}
+
+	/*
+	 * r = sin(a), r = cos(a), r = tan(a): ii = { r, a }
+	 * 
+	 * a is narrowed to the hull of its part in the pre-image of r,
+	 * all the periodic branches of the inverse function:
+	 *   sin: 2k*pi + asin(r) and 2k*pi + pi - asin(r)
+	 *   cos: 2k*pi + acos(r) and 2k*pi - acos(r)
+	 *   tan: k*pi + atan(r)
+	 * Only the branches at the ends of a are looked at.
+	 */
+	public static NarrowingStatus contractSin(RealInterval[] ii) {
+		RealInterval newR = intersect(sin(ii[1]), ii[0]);
+		RealInterval y = asin(ii[0]);
+		RealInterval newA = hull(	periodicPart(ii[1], y, TWO_PI), 
+									periodicPart(ii[1], sub(PI, y), TWO_PI));
+		return update(ii, newR, newA);
+	}
+	public static NarrowingStatus contractCos(RealInterval[] ii) {
+		RealInterval newR = intersect(cos(ii[1]), ii[0]);
+		RealInterval y = acos(ii[0]);
+		RealInterval newA = hull(	periodicPart(ii[1], y, TWO_PI), 
+									periodicPart(ii[1], uminus(y), TWO_PI));
+		return update(ii, newR, newA);
+	}
+	public static NarrowingStatus contractTan(RealInterval[] ii) {
+		RealInterval newR = intersect(tan(ii[1]), ii[0]);
+		RealInterval newA = periodicPart(ii[1], atan(ii[0]), PI);
+		return update(ii, newR, newA);
+	}
+
+	private static final RealInterval PI = new RealInterval(RMath.prevfp(Math.PI), RMath.nextfp(Math.PI));
+	private static final RealInterval TWO_PI = add(PI, PI);
+
+	// beyond this the multiples of the period are not apart in doubles
+	private static final double MAX_PERIODS = 0x1p50;
+
+	/*
+	 * The hull of the part of x in the union of the branches
+	 * B(k) = k*period + y over all integers k; EMPTY if there is none.
+	 * The first branch reaching into x from the left gives the new
+	 * lower bound, the last one from the right the upper bound.
+	 */
+	private static RealInterval periodicPart(RealInterval x, RealInterval y, RealInterval period) {
+		if (x.isEmpty() || y.isEmpty())
+			return RealInterval.EMPTY;
+		double lo = x.lo, hi = x.hi;
+		if (!Double.isInfinite(lo)) {
+			double k = Math.ceil((lo - y.hi) / period.hi);
+			if (!(Math.abs(k) < MAX_PERIODS))
+				return x;
+			while (branch(k - 1, y, period).hi >= lo)
+				k--;
+			while (branch(k, y, period).hi < lo)
+				k++;
+			RealInterval b = branch(k, y, period);
+			if (b.lo > hi)
+				return RealInterval.EMPTY; // x lies between two branches
+			lo = Math.max(lo, b.lo);
+		}
+		if (!Double.isInfinite(hi)) {
+			double k = Math.floor((hi - y.lo) / period.lo);
+			if (!(Math.abs(k) < MAX_PERIODS))
+				return x;
+			while (branch(k + 1, y, period).lo <= hi)
+				k++;
+			while (branch(k, y, period).lo > hi)
+				k--;
+			RealInterval b = branch(k, y, period);
+			if (b.hi < lo)
+				return RealInterval.EMPTY;
+			hi = Math.min(hi, b.hi);
+		}
+		return new RealInterval(lo, hi);
+	}
+
+	private static RealInterval branch(double k, RealInterval y, RealInterval period) {
+		return add(mul(new RealInterval(k), period), y);
+	}
+
+	private static RealInterval hull(RealInterval x, RealInterval y) {
+		return IntervalUnion.union(x, y).hull();
+	}
+	private static NarrowingStatus update(RealInterval[] ii, RealInterval newR, RealInterval newA) {
+		NarrowingStatus s = status(ii[0], ii[1], newR, newA);
+		if (s == NarrowingStatus.NARROWED) {
+			ii[0] = newR;
+			ii[1] = newA;
+		}
+		return s;
 	}
 
 	public static boolean narrowSin(RealInterval r, RealInterval a)
 			throws IANarrowingFaildException {
-		RealInterval newR = intersect(sin(a), r);
-		RealInterval newA = intersect(asin(r), a);
-		return wasNarrowed(r, a, newR, newA);
+		return narrowed(contractSin(new RealInterval[] { r, a }));
 	}
 
 	public static boolean narrowCos(RealInterval r, RealInterval a)
 			throws IANarrowingFaildException {
-		RealInterval newR = intersect(cos(a), r);
-		RealInterval newA = intersect(acos(r), a);
-		return wasNarrowed(r, a, newR, newA);
+		return narrowed(contractCos(new RealInterval[] { r, a }));
 	}
 
 	public static boolean narrowTan(RealInterval r, RealInterval a)
 			throws IANarrowingFaildException {
-		RealInterval newR = intersect(tan(a), r);
-		RealInterval newA = intersect(atan(r), a);
-		return wasNarrowed(r, a, newR, newA);
+		return narrowed(contractTan(new RealInterval[] { r, a }));
 	}
   /*	  
   // res = asin(a)
@@ -195,49 +330,67 @@ public class IANarrow {
 */  
 
 	/**
-	 * z = x^y, where y is an integer
-	 * 
-	 * @throws IANarrowingFaildException
+	 * z = x^y, where y is an integer; ii = { z, x }
 	 */
-	public static boolean narrowPower(RealInterval r, RealInterval x, int y)
-			throws IANarrowingFaildException {
+	public static NarrowingStatus contractPower(RealInterval[] ii, int y) {
+		RealInterval r = ii[0], x = ii[1];
 		RealInterval newR = intersect(power(x, y), r);
 
 		RealInterval possibleX = root(r, y);
-		// possibleX = ((+/-x)^4)^1/4
-		if (y % 2 == 0) {
-			if (possibleX.lo() > x.hi()) // [x] .. 0 .. [posX]
-				possibleX = uminus(possibleX);
-			else if (x.contains(possibleX) && x.contains(uminus(possibleX))) {
-				// [ x_lo .. -[posX] .. 0 .. [posX] .. x_hi ]
-				possibleX = new RealInterval(-possibleX.hi(), possibleX.hi());
-			}
-		}
+		// possibleX = ((+/-x)^4)^1/4: both roots, as far as they are in x
+		if (y % 2 == 0)
+			possibleX = IntervalUnion.union(uminus(possibleX), possibleX).intersect(x).hull();
 		RealInterval newX = intersect(possibleX, x);
-		return wasNarrowed(r, x, newR, newX);
+		return update(ii, newR, newX);
 	}
 
 	/**
-	 * z = x^y,
+	 * z = x^y, where y is an integer
 	 * 
 	 * @throws IANarrowingFaildException
 	 */
-	public static boolean narrowPow(RealInterval[] aWayToPassPointersToFunction) throws IANarrowingFaildException {
+	public static boolean narrowPower(RealInterval r, RealInterval x, int y)
+			throws IANarrowingFaildException {
+		return narrowed(contractPower(new RealInterval[] { r, x }, y));
+	}
+
+	/**
+	 * z = x^y
+	 */
+	public static NarrowingStatus contractPow(RealInterval[] aWayToPassPointersToFunction) {
 		RealInterval r = aWayToPassPointersToFunction[0];
 		RealInterval x = aWayToPassPointersToFunction[1];
 		RealInterval y = aWayToPassPointersToFunction[2];
 		
-		RealInterval newR = intersect(power(x, y), r);
-		RealInterval newX = intersect(root(r, y), x);
-		RealInterval possibleY = div(log(r), log(x));
-		RealInterval newY = intersect(possibleY, y);
-		if ( wasNarrowed(r, x, y, newR, newX, newY) ) {
+		RealInterval newR, newX = x, newY = y;
+		try {
+			newR = intersect(power(x, y), r);
+		} catch (IllegalArgumentException e) {
+			// x^y has no real value for x < 0 unless y is an integer: no narrowing
+			newR = r;
+		}
+		if (x.lo > 0) {
+			// x^y = exp(y*log(x)): log(x) = log(r)/y, y = log(r)/log(x)
+			RealInterval logR = log(r);
+			newX = intersect(exp(divExtended(logR, y).hull()), x);
+			newY = intersect(divExtended(logR, log(x)).hull(), y);
+		}
+		NarrowingStatus s = status(r, x, y, newR, newX, newY);
+		if (s == NarrowingStatus.NARROWED) {
 			aWayToPassPointersToFunction[0] = newR;
 			aWayToPassPointersToFunction[1] = newX;
 			aWayToPassPointersToFunction[2] = newY;
-			return true;
 		}
-		return false;			
+		return s;
+	}
+
+	/**
+	 * z = x^y,
+	 * 
+	 * @throws IANarrowingFaildException
+	 */
+	public static boolean narrowPow(RealInterval[] aWayToPassPointersToFunction) throws IANarrowingFaildException {
+		return narrowed(contractPow(aWayToPassPointersToFunction));
 	}
       
 /*
@@ -253,88 +406,135 @@ public static boolean narrow_semi(
   }
 */
   
-	public static boolean narrowEquals(RealInterval[] ii) throws IANarrowingFaildException {
+	public static NarrowingStatus contractEquals(RealInterval[] ii) {
 		assert ii.length == 2;
 		RealInterval newVal = intersect(ii);
-		boolean success = wasNarrowed(newVal, ii[0]) || wasNarrowed(newVal, ii[1]);
-		if (success) {
+		NarrowingStatus s = status(ii[0], ii[1], newVal, newVal);
+		if (s == NarrowingStatus.NARROWED) {
 			ii[0] = ii[1] = newVal;
 		}
-		return success;
+		return s;
 	}
-/*  
-  public static boolean 
-  narrow_eq(RealInterval a,RealInterval b,RealInterval c) {
-    if ((b.lo==b.hi) && b.equals(c)) {
-      a.lo = 1.0; a.hi = 1.0; 
-      return(true);
-    }
-    else
-      try {
-        b.intersect(c);
-        c.intersect(b);
-        return true;
-    } catch (IAException e) {
-        return false;
-    }
-  }
-*/
+	public static boolean narrowEquals(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractEquals(ii));
+	}
+	/*
+	 * The comparisons are reified: ii = { r, x, y }, r = (x op y) is a
+	 * boolean, [0, 0] false, [1, 1] true, [0, 1] unknown. r is decided
+	 * when x and y decide the comparison, and a decided r narrows x and
+	 * y by the comparison or its negation. To state x < y, pass
+	 * r = [1, 1].
+	 * The domains are closed, so x < y narrows just as x <= y.
+	 */
 
-	/* x < y */
-  /*
-  public static boolean narrow_lt(
-       RealInterval result,RealInterval x,RealInterval y) {
-    try {
-       if (y.lo < x.lo) y.lo = x.lo;
-       if (x.hi > y.hi) x.hi = y.hi;
-       if (y.hi <= x.lo)
-         return false;
-       else if (x.hi < y.lo) {
-         result.lo = 1.0; result.hi=1.0;
-       }
-       else {
-         result.intersect(new RealInterval(0.0,1.0));
-       }
-       return(x.nonEmpty()&&y.nonEmpty());
-    } catch (IAException e) {
-      return false;
-    }
-  }
+	private static final RealInterval TRUE = new RealInterval(1), FALSE = new RealInterval(0);
+	private static final RealInterval BOOLEAN = new RealInterval(0, 1);
 
-  public static boolean narrow_le(
-       RealInterval r,RealInterval x,RealInterval y) {
-    try {
-       if (y.lo <= x.lo) y.lo = x.lo;
-       if (x.hi >= y.hi) x.hi = y.hi;
-       if (y.hi < x.lo)
-         return false;
-       else if (x.hi <= y.lo) {
-         r.lo = 1.0; r.hi=1.0;
-       }
-       else {
-         r.intersect(new RealInterval(0.0,1.0));
-       }
-       return(x.nonEmpty()&&y.nonEmpty());
-    } catch (IAException e) {
-      return false;
-    }
-  }
+	/* r = x < y */
+	public static NarrowingStatus contractLt(RealInterval[] ii) {
+		return compare(ii, 1, 2, true);
+	}
+	public static boolean narrowLt(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractLt(ii));
+	}
 
-  public static boolean narrow_gt(
-       RealInterval r,RealInterval x,RealInterval y) {
-    return narrow_lt(r,y,x);
-  }
+	/* r = x <= y */
+	public static NarrowingStatus contractLe(RealInterval[] ii) {
+		return compare(ii, 1, 2, false);
+	}
+	public static boolean narrowLe(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractLe(ii));
+	}
 
-  public static boolean narrow_ge(
-       RealInterval r,RealInterval x,RealInterval y) {
-    return narrow_le(r,y,x);
-  }
+	/* r = x > y */
+	public static NarrowingStatus contractGt(RealInterval[] ii) {
+		return compare(ii, 2, 1, true);
+	}
+	public static boolean narrowGt(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractGt(ii));
+	}
 
-  public static boolean narrow_ne(
-       RealInterval r,RealInterval x,RealInterval y) {
-    return ((x.lo < x.hi) || (y.lo < y.hi) || (x.lo != y.lo));
-  }
-*/
+	/* r = x >= y */
+	public static NarrowingStatus contractGe(RealInterval[] ii) {
+		return compare(ii, 2, 1, false);
+	}
+	public static boolean narrowGe(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractGe(ii));
+	}
 
-}
+	/* r = x == y */
+	public static NarrowingStatus contractEq(RealInterval[] ii) {
+		return compareEquals(ii, true);
+	}
+	public static boolean narrowEq(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractEq(ii));
+	}
+
+	/* r = x != y */
+	public static NarrowingStatus contractNe(RealInterval[] ii) {
+		return compareEquals(ii, false);
+	}
+	public static boolean narrowNe(RealInterval[] ii) throws IANarrowingFaildException {
+		return narrowed(contractNe(ii));
+	}
+
+	// r = ii[ix] < ii[iy], or <= if not strict
+	private static NarrowingStatus compare(RealInterval[] ii, int ix, int iy, boolean strict) {
+		assert ii.length == 3;
+		RealInterval r = ii[0], x = ii[ix], y = ii[iy];
+		if (x.isEmpty() || y.isEmpty())
+			return NarrowingStatus.EMPTY;
+		boolean sure = strict ? x.hi < y.lo : x.hi <= y.lo;
+		boolean never = strict ? x.lo >= y.hi : x.lo > y.hi;
+		RealInterval newR = truth(r, sure ? TRUE : never ? FALSE : BOOLEAN);
+		RealInterval newX = x, newY = y;
+		if (newR.lo == 1) { // x <= y
+			newX = intersect(x, new RealInterval(Double.NEGATIVE_INFINITY, y.hi));
+			newY = intersect(y, new RealInterval(x.lo, Double.POSITIVE_INFINITY));
+		} else if (newR.hi == 0) { // x >= y
+			newX = intersect(x, new RealInterval(y.lo, Double.POSITIVE_INFINITY));
+			newY = intersect(y, new RealInterval(Double.NEGATIVE_INFINITY, x.hi));
+		}
+		NarrowingStatus s = status(x, y, r, newX, newY, newR);
+		if (s == NarrowingStatus.NARROWED) {
+			ii[0] = newR;
+			ii[ix] = newX;
+			ii[iy] = newY;
+		}
+		return s;
+	}
 
+	// r = x == y, or x != y if not equal
+	private static NarrowingStatus compareEquals(RealInterval[] ii, boolean equal) {
+		assert ii.length == 3;
+		RealInterval r = ii[0], x = ii[1], y = ii[2];
+		if (x.isEmpty() || y.isEmpty())
+			return NarrowingStatus.EMPTY;
+		RealInterval both = intersect(x, y);
+		boolean same = x.lo == x.hi && x.equals(y);
+		RealInterval t = same ? TRUE : both.isEmpty() ? FALSE : BOOLEAN;
+		if (!equal)
+			t = sub(TRUE, t);
+		RealInterval newR = truth(r, t);
+		RealInterval newX = x, newY = y;
+		if (equal ? newR.lo == 1 : newR.hi == 0)
+			newX = newY = both;
+		NarrowingStatus s = status(x, y, r, newX, newY, newR);
+		if (s == NarrowingStatus.NARROWED) {
+			ii[0] = newR;
+			ii[1] = newX;
+			ii[2] = newY;
+		}
+		return s;
+	}
+
+	// the booleans in both r and t
+	private static RealInterval truth(RealInterval r, RealInterval t) {
+		RealInterval b = intersect(r, t);
+		if (b.isEmpty())
+			return b;
+		double lo = Math.ceil(b.lo), hi = Math.floor(b.hi);
+		return lo <= hi ? new RealInterval(lo, hi) : RealInterval.EMPTY;
+	}
+
+}
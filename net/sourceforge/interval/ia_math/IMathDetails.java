@@ -4,7 +4,6 @@
 package net.sourceforge.interval.ia_math;
 
 import static net.sourceforge.interval.ia_math.IAMath.*;
-import net.sourceforge.interval.ia_math.exceptions.IAComputationalException;
 
 /**
  * @author nvpanov
@@ -19,7 +18,10 @@ class IMathDetails {
 	protected static final RealInterval one = new RealInterval(1);
 
 	protected static boolean isAnyoneThin(RealInterval x, RealInterval y) {
-		 return (x.wid() == 0 || y.wid() == 0);
+		 return (x.lo == x.hi || y.lo == y.hi); // not the empty ones
+	}
+	protected static boolean isAnyoneEmpty(RealInterval x, RealInterval y) {
+		 return x.lo > x.hi || y.lo > y.hi;
 	}
 	protected static RealInterval div_zero(RealInterval x) {
 		if (x.lo() == 0 && x.hi() == 0)
@@ -93,6 +95,12 @@ class IMathDetails {
 			return new RealInterval(RMath.div_lo(xl, yu), RMath.div_hi(xu, yl));
 	}
 
+	protected static void checkSizes(IntervalVector x, IntervalVector y, IntervalVector res) {
+		if (x.size() != res.size() || y.size() != res.size())
+			throw new IllegalArgumentException("Vectors of different sizes: "
+					+ x.size() + ", " + y.size() + ", " + res.size());
+	}
+
 	protected static RealInterval sinRange(int a, int b) {
 		switch (4 * a + b) {
 		case 0:
@@ -136,163 +144,74 @@ class IMathDetails {
 		 return new RealInterval(-1,1);
 	}
 
-	protected static RealInterval sin2pi0DI(double x) {
-		return new RealInterval(RMath.sin2pi_lo(x), RMath.sin2pi_hi(x));
-	}
-
-	protected static RealInterval cos2pi0DI(double x) {
-		return new RealInterval(RMath.cos2pi_lo(x), RMath.cos2pi_hi(x));
-	}
-
 	/*
-	 * this returns an interval containing sin(x+a/4) assuming -1/4 <= x < 1/4,
-	 * and a in {0,1,2,3}
+	 * sin(2 pi x) and cos(2 pi x): both functions at both ends of x come
+	 * from one argument reduction per end, the extrema inside x are
+	 * found by sinRange
 	 */
-	protected static RealInterval eval_sin2pi(double x, int a) {
-		switch (a) {
-		case 0:
-			return sin2pi0DI(x);
-		case 1:
-			return cos2pi0DI(x);
-		case 2:
-			return uminus(sin2pi0DI(x));
-		case 3:
-			return uminus(cos2pi0DI(x));
-		}
-		System.out.println("ERROR in eval_sin2pi(" + x + "," + a + ")");
-		throw new IAComputationalException("Internal error in eval_sin2pi(" + x
-				+ "," + a + ")");
-		// return new RealInterval();
-	}
-
-	protected static RealInterval sin2pi(RealInterval x) {
-		// RealInterval r = new RealInterval(); //nvp: local var is never used
-		RealInterval z = null;
-		RealInterval y1 = null, y2 = null;
-		int a = 0, b = 0;
-		// double t1=0,t2=0; //nvp: local var is never used
-		// double w; //nvp: local var is never used
-
+	protected static RealInterval[] sincos2pi(RealInterval x) {
 		double m1, m2, n1, n2, z1, z2, width;
-		int j1, j2;
 		long mlo, mhi;
 
-		// System.out.println("ENTERING sin2pi("+x+")");
-
-		if (Double.isInfinite(x.lo) || Double.isInfinite(x.hi)) {
-			return new RealInterval(-1.0, 1.0);
-		}
+		if (Double.isInfinite(x.lo) || Double.isInfinite(x.hi))
+			return wholeRange();
 
 		m1 = Math.rint(4 * x.lo);
-		j1 = (int) Math.round(m1 - 4 * Math.floor(m1 / 4.0));
 		z1 = RMath.sub_lo(x.lo, m1 / 4.0);
 		n1 = Math.floor(m1 / 4.0);
 
 		m2 = Math.rint(4 * x.hi);
-		j2 = (int) Math.round(m2 - 4 * Math.floor(m2 / 4.0));
 		z2 = RMath.sub_hi(x.hi, m2 / 4.0);
 		n2 = Math.floor(m2 / 4.0);
 
-		// System.out.println("in sin2pi: "+" x.lo="+x.lo+" x.hi="+x.hi);
-		// System.out.println("         : "+" m1="+m1+" m2="+m2);
-		// System.out.println("         : "+" z1="+z1+" z2="+z2);
-		// System.out.println("         : "+" j1="+j1+" j2="+j2);
-		// System.out.println("         : "+" n1="+n1+" n2="+n2);
-
 		if ((z1 <= -0.25) || (z1 >= 0.25) || (z2 <= -0.25) || (z2 >= 0.25))
-			return new RealInterval(-1.0, 1.0);
+			return wholeRange();
 
-		mlo = (z1 >= 0) ? j1 : j1 - 1;
-		mhi = (z2 <= 0) ? j2 : j2 + 1;
+		// the quarter periods holding the ends
+		mlo = (long) (m1 - 4 * n1) - (z1 >= 0 ? 0 : 1);
+		mhi = (long) (m2 - 4 * n2) + (z2 <= 0 ? 0 : 1);
 
 		width = (mhi - mlo + 4 * (n2 - n1));
 
-		// System.out.println("         : "+" mlo="+mlo+" mhi="+mhi);
-		// System.out.println("         : "+" width"+width);
-
 		if (width > 4)
-			return new RealInterval(-1.0, 1.0);
-
-		y1 = eval_sin2pi(z1, j1);
-		y2 = eval_sin2pi(z2, j2);
-
-		z = new RealInterval(Math.min(y1.lo, y2.lo), Math.max(y2.hi, y1.hi)); // nvp 1/9/2012
-
-		a = (int) ((mlo + 4) % 4);
-		b = (int) ((mhi + 3) % 4);
+			return wholeRange();
 
-		// System.out.println("in sin2pi: "+" y1="+y1+" y2="+y2+" z="+z+
-		// "\n  j1="+j1+" j2="+j2+" mlo="+mlo+" mhi="+mhi +
-		// "\n  w ="+width+" a="+a+" b="+b+"\n  sinRange="+sinRange(a,b));
-		// if (r.lo < 0) a = (a+3)%4;
-		// if (r.hi < 0) b = (b+3)%4;
+		RealInterval s1 = new RealInterval(), c1 = new RealInterval();
+		RealInterval s2 = new RealInterval(), c2 = new RealInterval();
+		RMath.sincos2pi(x.lo, s1, c1);
+		RMath.sincos2pi(x.hi, s2, c2);
 
-		if (width <= 1)
-			return z;
-		RealInterval tmp = sinRange(a, b);
-//		tmp = union(z, sinRange(a, b));
-		tmp = new RealInterval(Math.min(z.lo, tmp.lo), Math.max(z.hi, tmp.hi)); // nvp 1/9/2012
-
-		return tmp;
+		// cos(2 pi x) = sin(2 pi (x + 1/4))
+		return new RealInterval[] {
+				hull2pi(s1, s2, width, (int) ((mlo + 4) % 4), (int) ((mhi + 3) % 4)),
+				hull2pi(c1, c2, width, (int) ((mlo + 4 + 1) % 4), (int) ((mhi + 3 + 1) % 4)) };
 	}
 
-	protected static RealInterval cos2pi(RealInterval x) {
-		RealInterval z = null;
-		RealInterval y1 = null, y2 = null;
-		int a = 0, b = 0;
-
-		double m1, m2, n1, n2, z1, z2, width;
-		int j1, j2;
-		long mlo, mhi;
-
-		if (Double.isInfinite(x.lo) || Double.isInfinite(x.hi)) {
-			return new RealInterval(-1.0, 1.0);
+	private static RealInterval hull2pi(RealInterval y1, RealInterval y2, double width, int a, int b) {
+		double lo = Math.min(y1.lo, y2.lo), hi = Math.max(y1.hi, y2.hi);
+		if (width > 1) {
+			RealInterval r = sinRange(a, b);
+			lo = Math.min(lo, r.lo);
+			hi = Math.max(hi, r.hi);
 		}
+		return new RealInterval(lo, hi);
+	}
 
-		m1 = Math.rint(4 * x.lo);
-		j1 = (int) Math.round(m1 - 4 * Math.floor(m1 / 4.0));
-		z1 = RMath.sub_lo(x.lo, m1 / 4.0);
-		n1 = Math.floor(m1 / 4.0);
-
-		m2 = Math.rint(4 * x.hi);
-		j2 = (int) Math.round(m2 - 4 * Math.floor(m2 / 4.0));
-		z2 = RMath.sub_hi(x.hi, m2 / 4.0);
-		n2 = Math.floor(m2 / 4.0);
-
-		if ((z1 <= -0.25) || (z1 >= 0.25) || (z2 <= -0.25) || (z2 >= 0.25))
-			return new RealInterval(-1.0, 1.0);
-
-		mlo = (z1 >= 0) ? j1 : j1 - 1;
-		mhi = (z2 <= 0) ? j2 : j2 + 1;
-
-		width = (mhi - mlo + 4 * (n2 - n1));
-
-		if (width > 4)
-			return new RealInterval(-1.0, 1.0);
-
-		y1 = eval_sin2pi(z1, (j1 + 1) % 4);
-		y2 = eval_sin2pi(z2, (j2 + 1) % 4);
-
-		z = new RealInterval(Math.min(y1.lo,y2.lo), Math.max(y1.hi,y2.hi));
-
-		a = (int) ((mlo + 4 + 1) % 4);
-		b = (int) ((mhi + 3 + 1) % 4);
+	private static RealInterval[] wholeRange() {
+		return new RealInterval[] { new RealInterval(-1.0, 1.0), new RealInterval(-1.0, 1.0) };
+	}
 
-		// System.out.println("in sin2pi: "+" y1="+y1+" y2="+y2+" z="+z+
-		// "\n  j1="+j1+" j2="+j2+" mlo="+mlo+" mhi="+mhi +
-		// "\n  w ="+width+" a="+a+" b="+b+"\n  sinRange="+sinRange(a,b));
-		// if (r.lo < 0) a = (a+3)%4;
-		// if (r.hi < 0) b = (b+3)%4;
+	protected static RealInterval sin2pi(RealInterval x) {
+		return sincos2pi(x)[0];
+	}
 
-		if (width <= 1)
-			return z;
-		RealInterval tmp0 = sinRange(a, b);
-		RealInterval tmp = new RealInterval(Math.min(z.lo,tmp0.lo), Math.max(z.hi,tmp0.hi));
-		return tmp;
+	protected static RealInterval cos2pi(RealInterval x) {
+		return sincos2pi(x)[1];
 	}
 
 	protected static RealInterval tan2pi(RealInterval x) {
-		return (div(sin2pi(x), cos2pi(x)));
+		RealInterval[] sc = sincos2pi(x);
+		return (div(sc[0], sc[1]));
 	}
 
 	/*
@@ -320,17 +239,18 @@ class IMathDetails {
 			return one;
 		else if (y > 0.0) {
 			if (x.lo >= 0) {
-				zlo = RMath.pow_lo(x.lo, y);
-				zhi = RMath.pow_hi(x.hi, y);
+				zlo = pow_lo(x.lo, y);
+				zhi = pow_hi(x.hi, y);
 			} else if (x.hi <= 0) {
-				zlo = RMath.pow_lo(-x.hi, y);
-				zhi = RMath.pow_hi(-x.lo, y);
+				zlo = pow_lo(-x.hi, y);
+				zhi = pow_hi(-x.lo, y);
 			} else {
 				zlo = 0.0;
-				zhi = Math.max(RMath.pow_lo(-x.lo, y), RMath.pow_hi(x.hi, y));
+				zhi = pow_hi(Math.max(-x.lo, x.hi), y);
 			}
 		} else if (y < 0.0) {
-			return div(one, evenPower(x, -y));
+			// 0^y is undefined for y < 0: EMPTY, not a division by [0, 0]
+			return divExtended(one, evenPower(x, -y)).hull();
 		} else
 			throw new IllegalArgumentException(
 					"evenPower(X,y): y=Nan not allowed");
@@ -340,6 +260,21 @@ class IMathDetails {
 		return new RealInterval(zlo, zhi);
 	}
 
+	/*
+	 * Bounds on x**y for x >= 0. Integer exponents are evaluated by
+	 * repeated multiplication, which is cheaper and much tighter than
+	 * exp(y*log(x)).
+	 */
+	private static double pow_lo(double x, double y) {
+		int n = (int) y;
+		return n == y ? RMath.ipow_lo(x, n) : RMath.pow_lo(x, y);
+	}
+
+	private static double pow_hi(double x, double y) {
+		int n = (int) y;
+		return n == y ? RMath.ipow_hi(x, n) : RMath.pow_hi(x, y);
+	}
+
 	/**
 	 * this is the Natural Interval extension of <code>sgn(x)*(|x|**y)<\code}
 	 * where <code>x</code> is an interval and <code>y</code> is a double.
@@ -359,17 +294,17 @@ class IMathDetails {
 				return one_one;
 		} else if (y > 0.0) {
 			if (x.lo >= 0) {
-				zlo = RMath.pow_lo(x.lo, y);
-				zhi = RMath.pow_hi(x.hi, y);
+				zlo = pow_lo(x.lo, y);
+				zhi = pow_hi(x.hi, y);
 			} else if (x.hi <= 0) {
-				zlo = -RMath.pow_hi(-x.lo, y);
-				zhi = -RMath.pow_lo(-x.hi, y);
+				zlo = -pow_hi(-x.lo, y);
+				zhi = -pow_lo(-x.hi, y);
 			} else {
-				zlo = -RMath.pow_hi(-x.lo, y);
-				zhi = RMath.pow_hi(x.hi, y);
+				zlo = -pow_hi(-x.lo, y);
+				zhi = pow_hi(x.hi, y);
 			}
 		} else if (y < 0.0) {
-			return div(one, oddPower(x, -y));
+			return divExtended(one, oddPower(x, -y)).hull();
 		} else
 			throw new IllegalArgumentException(
 					"oddPower(X,y): X = NaN not allowed");
@@ -395,25 +330,25 @@ class IMathDetails {
 	    double ylo,yhi,zlo,zhi; 
 	    //    System.out.println("evenRoot x^(1/y) with (x,y) = "+x+y);
 
-	    if (y < 0)
-	        return div(one,evenRoot(x, -y));
+	    if (y < 0) // no root of 0: EMPTY, not a division by [0, 0]
+	        return divExtended(one, evenRoot(x, -y)).hull();
 	    else if (y > 0) {
 	      ylo = RMath.div_lo(1.0,y);
 	      yhi = RMath.div_hi(1.0,y);
 
-	      if (x.lo() >= 1)
-	        zlo = RMath.pow_lo(x.lo(), ylo);
-	      else if (x.lo() >=  0)
-	        zlo = RMath.pow_lo(x.lo(), yhi);
+	      if (x.hi() < 0) // no real roots
+	        return RealInterval.EMPTY;
+	      double lo = Math.max(x.lo(), 0.0);
+
+	      if (lo >= 1)
+	        zlo = RMath.pow_lo(lo, ylo);
 	      else
-	        zlo = 0.0;
+	        zlo = RMath.pow_lo(lo, yhi);
 
 	      if (x.hi() >= 1)
 	        zhi = RMath.pow_hi(x.hi(), yhi);
-	      else if (x.lo() >=  0) // ????
+	      else
 	        zhi = RMath.pow_hi( x.hi(), ylo);
-	      else 
-	        throw new IllegalArgumentException("evenRoot(X,y): X < 0 not allowed");
 
 	      return new RealInterval(zlo,zhi);
 	    }
@@ -432,7 +367,7 @@ class IMathDetails {
 	    double ylo,yhi,zlo,zhi;
 
 	    if (y < 0) 
-		    return div(one, oddRoot(x, -y));
+		    return divExtended(one, oddRoot(x, -y)).hull();
 	    if (y > 0) {
 	      ylo = RMath.div_lo(1.0,y);
 	      yhi = RMath.div_hi(1.0,y);
@@ -0,0 +1,164 @@
+package net.sourceforge.interval.ia_math;
+
+import net.sourceforge.interval.ia_math.exceptions.IARuntimeException;
+
+/**
+ * IntervalAccumulator is a mutable interval for long sums and products.
+ * <p>
+ * Every operation updates the accumulator in place following the
+ * corresponding IAMath operation, so a loop like
+ * <pre>
+ *   IntervalAccumulator s = new IntervalAccumulator();
+ *   for (RealInterval x : xs)
+ *       s.addInPlace(x);
+ *   RealInterval sum = s.toRealInterval();
+ * </pre>
+ * creates only the final RealInterval. The class is final and keeps its
+ * state in two doubles, so when an accumulator does not escape the method
+ * that uses it the JIT can replace it by two local variables.
+ * <p>
+ * The bounds are rounded by the RoundingPolicy given to the constructor,
+ * by default RoundingPolicy.GLOBAL (as IAMath).
+ * The class is not thread-safe.
+ */
+public final class IntervalAccumulator {
+
+	private final RoundingPolicy rounding;
+	private double lo;
+	private double hi;
+
+	/**
+	 * creates the accumulator [0, 0]
+	 */
+	public IntervalAccumulator() {
+		this(RoundingPolicy.GLOBAL);
+	}
+
+	public IntervalAccumulator(RoundingPolicy rounding) {
+		this.rounding = rounding;
+	}
+
+	public IntervalAccumulator(double lo, double hi) throws IARuntimeException {
+		this(RoundingPolicy.GLOBAL);
+		set(lo, hi);
+	}
+
+	public IntervalAccumulator(RealInterval x) {
+		this(RoundingPolicy.GLOBAL);
+		set(x);
+	}
+
+	public IntervalAccumulator(RealInterval x, RoundingPolicy rounding) {
+		this(rounding);
+		set(x);
+	}
+
+	public RoundingPolicy rounding() {
+		return rounding;
+	}
+
+	public double lo() {
+		return lo;
+	}
+
+	public double hi() {
+		return hi;
+	}
+
+	public double wid() {
+		return Math.abs(hi - lo);
+	}
+
+	public IntervalAccumulator set(double lo, double hi) throws IARuntimeException {
+		if (!(lo <= hi))
+			throw new IARuntimeException("IntervalAccumulator.set(x=" + lo + ",y=" + hi + "): must have x<=y");
+		this.lo = lo;
+		this.hi = hi;
+		return this;
+	}
+
+	public IntervalAccumulator set(RealInterval x) {
+		lo = x.lo;
+		hi = x.hi;
+		return this;
+	}
+
+	// this := this + y, as IAMath.add(RealInterval, RealInterval)
+	public IntervalAccumulator addInPlace(RealInterval y) {
+		lo = rounding.add_lo(lo, y.lo);
+		hi = rounding.add_hi(hi, y.hi);
+		return this;
+	}
+
+	// this := this + d, as IAMath.add(RealInterval, double)
+	public IntervalAccumulator addInPlace(double d) {
+		lo = lo + d;
+		hi = hi + d;
+		return this;
+	}
+
+	// this := this - y, as IAMath.sub(RealInterval, RealInterval)
+	public IntervalAccumulator subInPlace(RealInterval y) {
+		lo = rounding.sub_lo(lo, y.hi);
+		hi = rounding.sub_hi(hi, y.lo);
+		return this;
+	}
+
+	// this := this * y, as IAMath.mul(RealInterval, RealInterval)
+	public IntervalAccumulator mulInPlace(RealInterval y) {
+		double l = rounding.mul_lo(lo, hi, y.lo, y.hi);
+		hi = rounding.mul_hi(lo, hi, y.lo, y.hi);
+		lo = l;
+		return this;
+	}
+
+	// this := this * d, as IAMath.mul(double, RealInterval)
+	public IntervalAccumulator mulInPlace(double d) {
+		double l = lo;
+		if (d < 0) {
+			lo = rounding.mul_lo(d, hi);
+			hi = rounding.mul_hi(d, l);
+		} else if (d > 0) {
+			lo = rounding.mul_lo(d, l);
+			hi = rounding.mul_hi(d, hi);
+		} else {
+			lo = 0;
+			hi = 0;
+		}
+		return this;
+	}
+
+	/**
+	 * this := the smallest interval containing this and y
+	 */
+	public IntervalAccumulator hullInPlace(RealInterval y) {
+		lo = Math.min(lo, y.lo);
+		hi = Math.max(hi, y.hi);
+		return this;
+	}
+
+	/**
+	 * this := this intersect y.
+	 * Returns false and leaves the accumulator unchanged if the
+	 * intervals do not overlap (where IAMath.intersect returns null).
+	 */
+	public boolean intersectInPlace(RealInterval y) {
+		if (!RealInterval.isIntersects(lo, hi, y.lo, y.hi))
+			return false;
+		lo = Math.max(lo, y.lo);
+		hi = Math.min(hi, y.hi);
+		return true;
+	}
+
+	/**
+	 * returns an immutable copy of the current value
+	 */
+	public RealInterval toRealInterval() {
+		return new RealInterval(lo, hi);
+	}
+
+	@Override
+	public String toString() {
+		return toRealInterval().toString();
+	}
+}
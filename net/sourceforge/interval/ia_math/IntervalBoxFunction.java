@@ -0,0 +1,14 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * IntervalBoxFunction is a real function of several variables given by
+ * an interval extension: value(x) must contain f(t) for every point t
+ * of the box x, and be RealInterval.EMPTY only if f is nowhere defined
+ * on x. It must not change x.
+ * <p>
+ * Functions used by the parallel solvers must be thread-safe.
+ */
+public interface IntervalBoxFunction {
+
+	RealInterval value(RealInterval[] x);
+}
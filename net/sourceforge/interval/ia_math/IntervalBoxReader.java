@@ -0,0 +1,136 @@
+package net.sourceforge.interval.ia_math;
+
+import static net.sourceforge.interval.ia_math.IntervalBoxWriter.HEADER_BYTES;
+import static net.sourceforge.interval.ia_math.IntervalBoxWriter.MAGIC;
+import static net.sourceforge.interval.ia_math.IntervalBoxWriter.MAX_DIMENSION;
+import static net.sourceforge.interval.ia_math.IntervalBoxWriter.VERSION;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * IntervalBoxReader gives read access to a file written by
+ * IntervalBoxWriter. The file is memory-mapped, the bounds are read
+ * straight from the mapping and no object is created unless a box is
+ * asked for as RealInterval.
+ * <p>
+ * Files larger than 2GB are mapped in several parts. The reader is
+ * not thread-safe.
+ */
+public class IntervalBoxReader implements Closeable {
+
+	private final RandomAccessFile file;
+	private final int dimension;
+	private final long count;
+	private final int boxBytes;
+	private final int boxesPerPart;
+	private final ByteBuffer[] parts;
+
+	public IntervalBoxReader(File f) throws IOException {
+		file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0)
+					throw new IOException(f + " is not an interval box file: it is too short");
+			header.flip();
+			if (header.getInt() != MAGIC)
+				throw new IOException(f + " is not an interval box file");
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new IOException(f + ": unsupported version " + version);
+			dimension = header.getInt();
+			header.getInt();
+			count = header.getLong();
+			if (dimension < 1 || dimension > MAX_DIMENSION || count < 0)
+				throw new IOException(f + ": broken header, dimension=" + dimension + ", count=" + count);
+			boxBytes = 16 * dimension;
+			if (count > (Long.MAX_VALUE - HEADER_BYTES) / boxBytes
+					|| channel.size() < HEADER_BYTES + count * boxBytes)
+				throw new IOException(f + " is truncated: " + count + " boxes expected");
+
+			boxesPerPart = Math.max(1, Integer.MAX_VALUE / boxBytes);
+			int n = (int) ((count + boxesPerPart - 1) / boxesPerPart);
+			parts = new ByteBuffer[n];
+			for (int p = 0; p < n; p++) {
+				long boxes = Math.min(boxesPerPart, count - (long) p * boxesPerPart);
+				parts[p] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_BYTES + (long) p * boxesPerPart * boxBytes,
+						boxes * boxBytes).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * number of boxes in the file
+	 */
+	public long count() {
+		return count;
+	}
+
+	public double lo(long box, int i) {
+		return part(box).getDouble(offset(box, i));
+	}
+
+	public double hi(long box, int i) {
+		return part(box).getDouble(offset(box, i) + 8);
+	}
+
+	public RealInterval get(long box, int i) {
+		return new RealInterval(lo(box, i), hi(box, i));
+	}
+
+	public RealInterval[] getBox(long box) {
+		RealInterval[] res = new RealInterval[dimension];
+		for (int i = 0; i < dimension; i++)
+			res[i] = get(box, i);
+		return res;
+	}
+
+	/**
+	 * copies the box into <code>dst</code>, which must be of the
+	 * file dimension
+	 */
+	public void read(long box, IntervalVector dst) {
+		if (dst.size() != dimension)
+			throw new IllegalArgumentException("Vector of size " + dst.size() + " for a box of dimension " + dimension);
+		ByteBuffer part = part(box);
+		int pos = offset(box, 0);
+		for (int i = 0; i < dimension; i++, pos += 16) {
+			dst.lo[i] = part.getDouble(pos);
+			dst.hi[i] = part.getDouble(pos + 8);
+		}
+	}
+
+	/**
+	 * the mapping is released when the reader is garbage collected
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private ByteBuffer part(long box) {
+		if (box < 0 || box >= count)
+			throw new IndexOutOfBoundsException("Box: " + box + ", count: " + count);
+		return parts[(int) (box / boxesPerPart)];
+	}
+
+	private int offset(long box, int i) {
+		if (i < 0 || i >= dimension)
+			throw new IndexOutOfBoundsException("Index: " + i + ", dimension: " + dimension);
+		return (int) (box % boxesPerPart) * boxBytes + 16 * i;
+	}
+}
@@ -0,0 +1,117 @@
+package net.sourceforge.interval.ia_math;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * IntervalBoxWriter writes a sequence of boxes (vectors of real intervals
+ * of the same dimension) in the binary interval box format:
+ * <pre>
+ *   header, 32 bytes:
+ *     int   magic      'I' 'A' 'B' 'X'
+ *     int   version    1
+ *     int   dimension  number of intervals in a box
+ *     int   reserved   0
+ *     long  count      number of boxes
+ *     long  reserved   0
+ *   body: count * dimension * (double lo, double hi)
+ * </pre>
+ * All numbers are little-endian. The bounds are stored exactly, unlike
+ * the text produced by RealInterval.toString().
+ * <p>
+ * The box count is written into the header by <code>close()</code>.
+ * Files are read back by IntervalBoxReader.
+ */
+public class IntervalBoxWriter implements Closeable {
+
+	static final int MAGIC = 'I' | ('A' << 8) | ('B' << 16) | ('X' << 24); // "IABX" in little-endian
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 32;
+	static final int COUNT_OFFSET = 16;
+	// a box must fit in an int number of bytes
+	static final int MAX_DIMENSION = Integer.MAX_VALUE / 16;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int dimension;
+	private final int boxBytes;
+	private long count;
+
+	public IntervalBoxWriter(File f, int dimension) throws IOException {
+		if (dimension < 1 || dimension > MAX_DIMENSION)
+			throw new IllegalArgumentException("IntervalBoxWriter(dimension=" + dimension
+					+ "): must have 1<=dimension<=" + MAX_DIMENSION);
+		this.dimension = dimension;
+		boxBytes = 16 * dimension;
+		file = new RandomAccessFile(f, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		buffer = ByteBuffer.allocateDirect(Math.max(1 << 16, boxBytes)).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(0).putLong(0).putLong(0);
+	}
+
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * number of boxes written so far
+	 */
+	public long count() {
+		return count;
+	}
+
+	public void write(RealInterval[] box) throws IOException {
+		checkDimension(box.length);
+		reserve();
+		for (int i = 0; i < dimension; i++)
+			buffer.putDouble(box[i].lo).putDouble(box[i].hi);
+		count++;
+	}
+
+	public void write(IntervalVector box) throws IOException {
+		checkDimension(box.size());
+		reserve();
+		for (int i = 0; i < dimension; i++)
+			buffer.putDouble(box.lo[i]).putDouble(box.hi[i]);
+		count++;
+	}
+
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * writes the box count into the header and closes the file
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+			ByteBuffer c = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			c.putLong(count).flip();
+			while (c.hasRemaining())
+				channel.write(c, COUNT_OFFSET + c.position());
+		} finally {
+			file.close();
+		}
+	}
+
+	private void reserve() throws IOException {
+		if (buffer.remaining() < boxBytes)
+			flush();
+	}
+
+	private void checkDimension(int d) {
+		if (d != dimension)
+			throw new IllegalArgumentException("Box of dimension " + d + " can not be written into a file of dimension " + dimension);
+	}
+}
@@ -0,0 +1,195 @@
+package net.sourceforge.interval.ia_math;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import net.sourceforge.interval.ia_math.exceptions.IARuntimeException;
+
+/**
+ * IntervalBuffer is a growable list of real intervals kept off the Java
+ * heap, as packed (lo, hi) pairs of doubles in a direct ByteBuffer.
+ * <p>
+ * A stored interval costs exactly 16 bytes and is invisible to the
+ * garbage collector, which makes it suitable for very long work lists
+ * (e.g. boxes of a branch and bound search). Intervals can be read back
+ * one by one as RealInterval, or copied in blocks to and from an
+ * IntervalVector to be processed by the bulk operations in IAMath.
+ * <p>
+ * The memory is released together with the buffer object.
+ * The class is not thread-safe.
+ */
+public class IntervalBuffer {
+
+	private static final int INTERVAL_BYTES = 16;
+
+	private ByteBuffer data;
+	private int size;
+
+	public IntervalBuffer(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("IntervalBuffer(capacity=" + capacity + "): must have capacity>=0");
+		data = allocate(capacity);
+	}
+
+	private static ByteBuffer allocate(int capacity) {
+		if (capacity > Integer.MAX_VALUE / INTERVAL_BYTES)
+			throw new IllegalArgumentException("IntervalBuffer: capacity " + capacity + " is too big");
+		return ByteBuffer.allocateDirect(capacity * INTERVAL_BYTES).order(ByteOrder.nativeOrder());
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return data.capacity() / INTERVAL_BYTES;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity <= capacity())
+			return;
+		long grown = Math.min(2L * capacity(), Integer.MAX_VALUE / INTERVAL_BYTES);
+		ByteBuffer newData = allocate(Math.max(capacity, (int) grown));
+		ByteBuffer old = data.duplicate();
+		old.clear().limit(size * INTERVAL_BYTES);
+		newData.put(old).clear();
+		data = newData;
+	}
+
+	/**
+	 * appends [lo, hi] and returns its index
+	 */
+	public int add(double lo, double hi) throws IARuntimeException {
+		if (!(lo <= hi))
+			throw new IARuntimeException("IntervalBuffer.add(x=" + lo + ",y=" + hi + "): must have x<=y");
+		ensureCapacity(size + 1);
+		put(size, lo, hi);
+		return size++;
+	}
+
+	public int add(RealInterval x) {
+		return add(x.lo, x.hi);
+	}
+
+	/**
+	 * removes the last interval
+	 */
+	public void removeLast() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException("IntervalBuffer is empty");
+		size--;
+	}
+
+	/**
+	 * removes the i-th interval by moving the last one to its place
+	 */
+	public void swapRemove(int i) {
+		checkIndex(i);
+		int last = size - 1;
+		if (i != last)
+			put(i, lo(last), hi(last));
+		size = last;
+	}
+
+	public double lo(int i) {
+		checkIndex(i);
+		return data.getDouble(i * INTERVAL_BYTES);
+	}
+
+	public double hi(int i) {
+		checkIndex(i);
+		return data.getDouble(i * INTERVAL_BYTES + 8);
+	}
+
+	public double wid(int i) {
+		return Math.abs(hi(i) - lo(i));
+	}
+
+	public RealInterval get(int i) {
+		return new RealInterval(lo(i), hi(i));
+	}
+
+	public void set(int i, double lo, double hi) throws IARuntimeException {
+		checkIndex(i);
+		if (!(lo <= hi))
+			throw new IARuntimeException("IntervalBuffer.set(i=" + i + ", x=" + lo + ", y=" + hi + "): must have x<=y");
+		put(i, lo, hi);
+	}
+
+	public void set(int i, RealInterval x) {
+		checkIndex(i);
+		put(i, x.lo, x.hi);
+	}
+
+	// the same semantics as RealInterval.contains() and isIntersects()
+	public boolean contains(int i, double value) {
+		return RealInterval.contains(lo(i), hi(i), value);
+	}
+
+	public boolean contains(int i, RealInterval x) {
+		if (x == null)
+			return false;
+		return contains(i, x.hi) && contains(i, x.lo);
+	}
+
+	public boolean isIntersects(int i, RealInterval y) {
+		return RealInterval.isIntersects(lo(i), hi(i), y.lo, y.hi);
+	}
+
+	/**
+	 * copies <code>count</code> intervals starting from <code>from</code>
+	 * into <code>dst</code> starting from <code>dstFrom</code>
+	 */
+	public void load(int from, IntervalVector dst, int dstFrom, int count) {
+		checkRange(from, count);
+		final double[] l = dst.lo, h = dst.hi;
+		if (dstFrom < 0 || dstFrom + count > l.length)
+			throw new IndexOutOfBoundsException("IntervalBuffer.load: [" + dstFrom + ", "
+					+ (dstFrom + count) + ") is out of vector of size " + l.length);
+		for (int k = 0; k < count; k++) {
+			int pos = (from + k) * INTERVAL_BYTES;
+			l[dstFrom + k] = data.getDouble(pos);
+			h[dstFrom + k] = data.getDouble(pos + 8);
+		}
+	}
+
+	/**
+	 * copies <code>count</code> intervals from <code>src</code> starting from
+	 * <code>srcFrom</code> into this buffer starting from <code>from</code>.
+	 * The buffer grows if it is needed, but <code>from</code> may not be
+	 * greater than <code>size()</code>
+	 */
+	public void store(IntervalVector src, int srcFrom, int from, int count) {
+		if (from < 0 || from > size || count < 0)
+			throw new IndexOutOfBoundsException("IntervalBuffer.store: from=" + from + ", count=" + count
+					+ ", size=" + size);
+		final double[] l = src.lo, h = src.hi;
+		if (srcFrom < 0 || srcFrom + count > l.length)
+			throw new IndexOutOfBoundsException("IntervalBuffer.store: [" + srcFrom + ", "
+					+ (srcFrom + count) + ") is out of vector of size " + l.length);
+		ensureCapacity(from + count);
+		for (int k = 0; k < count; k++)
+			put(from + k, l[srcFrom + k], h[srcFrom + k]);
+		size = Math.max(size, from + count);
+	}
+
+	private void put(int i, double lo, double hi) {
+		int pos = i * INTERVAL_BYTES;
+		data.putDouble(pos, lo);
+		data.putDouble(pos + 8, hi);
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+	}
+
+	private void checkRange(int from, int count) {
+		if (from < 0 || count < 0 || from + count > size)
+			throw new IndexOutOfBoundsException("[" + from + ", " + (from + count) + ") is out of buffer of size " + size);
+	}
+}
@@ -0,0 +1,146 @@
+package net.sourceforge.interval.ia_math;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.util.Locale;
+
+/**
+ * IntervalFormat writes intervals as text directly into an Appendable,
+ * a StringBuilder or a ByteBuffer (ASCII).
+ * <p>
+ * All styles can be used from many threads at once: the DecimalFormat
+ * instances and the scratch buffer are kept per thread, nothing is shared
+ * and nothing depends on the default locale.
+ */
+public enum IntervalFormat {
+
+	/**
+	 * <code>[1.235E-2, 4.000E0]</code>, the style of RealInterval.toString()
+	 */
+	SCIENTIFIC,
+	/**
+	 * <code>[1,234.50, 4.00]</code>
+	 */
+	PLAIN,
+	/**
+	 * <code>[0.012345 , 4.0]</code>, all digits of the bounds
+	 */
+	FULL,
+	/**
+	 * <code>(2.5 +/- 0.5) </code>, the midpoint and the radius; intervals
+	 * containing zero in the middle are written as FULL with padded bounds
+	 */
+	MIDPOINT;
+
+	private static final class Scratch {
+		final DecimalFormat plain = new DecimalFormat("#0.00", symbols());
+		final DecimalFormat scientific = new DecimalFormat("0.000E0", symbols());
+		final StringBuffer text = new StringBuffer(64);
+		final FieldPosition position = new FieldPosition(0);
+
+		Scratch() {
+			plain.setGroupingSize(3);
+			plain.setGroupingUsed(true);
+		}
+
+		private static DecimalFormatSymbols symbols() {
+			DecimalFormatSymbols s = new DecimalFormatSymbols(Locale.ENGLISH);
+			s.setInfinity("inf");
+			s.setDecimalSeparator('.');
+			s.setGroupingSeparator(',');
+			return s;
+		}
+	}
+
+	private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	public String format(RealInterval x) {
+		return format(x.lo, x.hi, new StringBuilder(48)).toString();
+	}
+
+	public StringBuilder format(RealInterval x, StringBuilder out) {
+		return format(x.lo, x.hi, out);
+	}
+
+	public StringBuilder format(double lo, double hi, StringBuilder out) {
+		out.append(text(lo, hi));
+		return out;
+	}
+
+	public <A extends Appendable> A format(RealInterval x, A out) throws IOException {
+		out.append(text(x.lo, x.hi));
+		return out;
+	}
+
+	/**
+	 * writes the text as ASCII bytes at the position of <code>out</code>
+	 */
+	public ByteBuffer format(RealInterval x, ByteBuffer out) {
+		StringBuffer s = text(x.lo, x.hi);
+		for (int i = 0; i < s.length(); i++)
+			out.put((byte) s.charAt(i));
+		return out;
+	}
+
+	/*
+	 * formats into the per thread buffer; the result is valid
+	 * until the next call from the same thread
+	 */
+	private StringBuffer text(double lo, double hi) {
+		Scratch sc = scratch.get();
+		StringBuffer s = sc.text;
+		s.setLength(0);
+		switch (this) {
+		case SCIENTIFIC:
+			s.append('[');
+			sc.scientific.format(lo, s, sc.position);
+			s.append(", ");
+			sc.scientific.format(hi, s, sc.position);
+			s.append(']');
+			break;
+		case PLAIN:
+			s.append('[');
+			sc.plain.format(lo, s, sc.position);
+			s.append(", ");
+			sc.plain.format(hi, s, sc.position);
+			s.append(']');
+			break;
+		case FULL:
+			s.append('[').append(lo).append(" , ").append(hi).append(']');
+			break;
+		case MIDPOINT:
+			double midpoint = (lo + hi) / 2.0;
+			if (Math.abs(midpoint) > (hi - lo) / 2.0) {
+				s.append('(');
+				padded(s, midpoint);
+				s.append(" +/- ");
+				padded(s, hi - midpoint);
+				s.append(") ");
+			} else {
+				s.append('[');
+				padded(s, lo);
+				s.append(" , ");
+				padded(s, hi);
+				s.append(']');
+			}
+			break;
+		}
+		return s;
+	}
+
+	// the number is padded with spaces up to 19 characters
+	private static void padded(StringBuffer s, double x) {
+		int start = s.length();
+		s.append(x);
+		while (s.length() - start < 19)
+			s.append(' ');
+	}
+}
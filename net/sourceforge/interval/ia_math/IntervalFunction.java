@@ -0,0 +1,20 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * IntervalFunction is a real function of one variable given by an
+ * interval extension: value(x) must contain f(t) for every t in x
+ * (and be RealInterval.EMPTY only if f is nowhere defined on x).
+ * Built from IAMath operations it is, e.g.
+ * <pre>
+ *   new IntervalFunction() {
+ *       public RealInterval value(RealInterval x) {
+ *           return IAMath.sub(IAMath.sqr(x), new RealInterval(2));
+ *       }
+ *   };
+ * </pre>
+ * Functions used by the parallel solvers must be thread-safe.
+ */
+public interface IntervalFunction {
+
+	RealInterval value(RealInterval x);
+}
@@ -0,0 +1,389 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.Arrays;
+
+import net.sourceforge.interval.ia_math.exceptions.IARuntimeException;
+
+/**
+ * IntervalIndex is a set of real intervals which can be searched for
+ * the intervals overlapping a query interval, containing a point,
+ * containing a query interval or contained in it, without scanning all
+ * of them.
+ * <p>
+ * It is an interval tree: a treap ordered by the lower bounds, where
+ * every node also keeps the largest upper bound of its subtree. Queries
+ * take O(log(n) + k) for k results, insertion and removal O(log(n)),
+ * all expected. The nodes live in primitive arrays, so an index of n
+ * intervals is a dozen arrays rather than n objects.
+ * <p>
+ * Every stored interval is identified by a handle returned by
+ * <code>add()</code> (or, after the bulk build, by its position in the
+ * source vector). Handles of removed intervals are reused.
+ * <p>
+ * The answers are the same as RealInterval.isIntersects() and
+ * RealInterval.contains() would give, including infinite bounds.
+ * Queries do not change the index, so they can run concurrently;
+ * updates need external synchronization.
+ */
+public class IntervalIndex {
+
+	private static final int NIL = -1;
+	private static final int FREE = -2; // in left[] of a removed node
+
+	private double[] lo, hi, maxHi;
+	private int[] left, right, priority;
+	private int root = NIL;
+	private int size;
+	private int nodes;      // handles ever used
+	private int freeList = NIL; // chained through right[]
+	private int seed = 0x2545F491;
+
+	public IntervalIndex() {
+		this(16);
+	}
+
+	public IntervalIndex(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("IntervalIndex(capacity=" + capacity + "): must have capacity>=0");
+		allocate(Math.max(capacity, 1));
+	}
+
+	/**
+	 * builds the index of all intervals of <code>v</code> in O(n log(n));
+	 * the handle of an interval is its index in <code>v</code>
+	 */
+	public IntervalIndex(IntervalVector v) throws IARuntimeException {
+		int n = v.size();
+		for (int i = 0; i < n; i++)
+			if (!(v.lo[i] <= v.hi[i])) // e.g. EMPTY stored by set(i, x)
+				throw new IARuntimeException("IntervalIndex(v): v[" + i + "] = [" + v.lo[i] + ", " + v.hi[i]
+						+ "], must have x<=y");
+		allocate(Math.max(n, 1));
+		System.arraycopy(v.lo, 0, lo, 0, n);
+		System.arraycopy(v.hi, 0, hi, 0, n);
+		nodes = size = n;
+		if (n == 0)
+			return;
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		sort(order, new int[n], 0, n);
+		root = build(order, 0, n);
+
+		// the tree is perfectly balanced; random priorities, assigned
+		// in decreasing order breadth first, make it a heap as well, so
+		// add() and remove() keep it a treap
+		int[] prio = new int[n];
+		for (int i = 0; i < n; i++)
+			prio[i] = random();
+		Arrays.sort(prio);
+		int[] queue = order; // not needed any more
+		int head = 0, tail = 0;
+		queue[tail++] = root;
+		while (head < tail) {
+			int t = queue[head++];
+			priority[t] = prio[n - head];
+			if (left[t] != NIL)
+				queue[tail++] = left[t];
+			if (right[t] != NIL)
+				queue[tail++] = right[t];
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		root = freeList = NIL;
+		size = nodes = 0;
+	}
+
+	/**
+	 * adds [lo, hi] and returns its handle
+	 */
+	public int add(double lo, double hi) throws IARuntimeException {
+		if (!(lo <= hi))
+			throw new IARuntimeException("IntervalIndex.add(x=" + lo + ",y=" + hi + "): must have x<=y");
+		int t;
+		if (freeList != NIL) {
+			t = freeList;
+			freeList = right[t];
+		} else {
+			if (nodes == this.lo.length)
+				allocate(2 * nodes);
+			t = nodes++;
+		}
+		this.lo[t] = lo;
+		this.hi[t] = hi;
+		maxHi[t] = hi;
+		left[t] = right[t] = NIL;
+		priority[t] = random();
+		root = insert(root, t);
+		size++;
+		return t;
+	}
+
+	public int add(RealInterval x) {
+		return add(x.lo, x.hi);
+	}
+
+	/**
+	 * removes the interval; returns false if the handle is not in use
+	 */
+	public boolean remove(int handle) {
+		if (!isUsed(handle))
+			return false;
+		root = delete(root, handle);
+		left[handle] = FREE;
+		right[handle] = freeList;
+		freeList = handle;
+		size--;
+		return true;
+	}
+
+	public boolean isUsed(int handle) {
+		return handle >= 0 && handle < nodes && left[handle] != FREE;
+	}
+
+	public double lo(int handle) {
+		check(handle);
+		return lo[handle];
+	}
+
+	public double hi(int handle) {
+		check(handle);
+		return hi[handle];
+	}
+
+	public RealInterval get(int handle) {
+		check(handle);
+		return new RealInterval(lo[handle], hi[handle]);
+	}
+
+	/*
+	 * Queries write the handles of the found intervals into result
+	 * and return their number. If there are more of them than result
+	 * can hold, only the first result.length are written but the full
+	 * number is returned, so the call can be repeated with a larger array.
+	 * The order of the handles is the order of the lower bounds.
+	 */
+
+	/**
+	 * the intervals containing the point x
+	 */
+	public int stab(double x, int[] result) {
+		if (x != x)
+			return 0;
+		return collect(root, x, x, OVERLAP, result, 0);
+	}
+
+	/**
+	 * the intervals intersecting [lo, hi]
+	 */
+	public int overlaps(double lo, double hi, int[] result) {
+		if (!(lo <= hi)) // EMPTY overlaps nothing
+			return 0;
+		return collect(root, lo, hi, OVERLAP, result, 0);
+	}
+
+	public int overlaps(RealInterval x, int[] result) {
+		return overlaps(x.lo, x.hi, result);
+	}
+
+	/**
+	 * the intervals containing x
+	 */
+	public int containing(RealInterval x, int[] result) {
+		return collect(root, x.lo, x.hi, CONTAINING, result, 0);
+	}
+
+	/**
+	 * the intervals contained in x
+	 */
+	public int containedIn(RealInterval x, int[] result) {
+		return collect(root, x.lo, x.hi, CONTAINED, result, 0);
+	}
+
+	/**
+	 * whether any interval intersects [lo, hi]; cheaper than overlaps()
+	 */
+	public boolean isIntersects(double lo, double hi) {
+		return overlaps(lo, hi, EMPTY_RESULT) > 0;
+	}
+
+	private static final int[] EMPTY_RESULT = new int[0];
+	private static final int OVERLAP = 0, CONTAINING = 1, CONTAINED = 2;
+
+	/*
+	 * In-order walk of the subtree t, skipping the subtrees which can
+	 * not have answers. All three queries need lo[node] <= qh and
+	 * maxHi >= ql (CONTAINING even lo <= ql and maxHi >= qh), and
+	 * CONTAINED needs lo[node] >= ql, so a node below ql is skipped
+	 * together with its left subtree.
+	 */
+	private int collect(int t, double ql, double qh, int mode, int[] result, int n) {
+		while (t != NIL) {
+			if (maxHi[t] < (mode == CONTAINING ? qh : ql))
+				return n;
+			double l = lo[t];
+			if (mode != CONTAINED || l >= ql) {
+				n = collect(left[t], ql, qh, mode, result, n);
+				if (n > 0 && result == EMPTY_RESULT)
+					return n;
+				if (l > (mode == CONTAINING ? ql : qh))
+					return n;
+				double h = hi[t];
+				boolean found;
+				if (mode == OVERLAP)
+					found = h >= ql;
+				else if (mode == CONTAINING)
+					found = h >= qh;
+				else
+					found = h <= qh;
+				if (found) {
+					if (result == EMPTY_RESULT)
+						return n + 1;
+					if (n < result.length)
+						result[n] = t;
+					n++;
+				}
+			}
+			t = right[t];
+		}
+		return n;
+	}
+
+	private int insert(int t, int node) {
+		if (t == NIL)
+			return node;
+		if (less(node, t)) {
+			left[t] = insert(left[t], node);
+			if (priority[left[t]] > priority[t])
+				return rotateRight(t);
+		} else {
+			right[t] = insert(right[t], node);
+			if (priority[right[t]] > priority[t])
+				return rotateLeft(t);
+		}
+		update(t);
+		return t;
+	}
+
+	private int delete(int t, int node) {
+		if (t == node)
+			return merge(left[t], right[t]);
+		if (less(node, t))
+			left[t] = delete(left[t], node);
+		else
+			right[t] = delete(right[t], node);
+		update(t);
+		return t;
+	}
+
+	private int merge(int a, int b) {
+		if (a == NIL)
+			return b;
+		if (b == NIL)
+			return a;
+		if (priority[a] > priority[b]) {
+			right[a] = merge(right[a], b);
+			update(a);
+			return a;
+		}
+		left[b] = merge(a, left[b]);
+		update(b);
+		return b;
+	}
+
+	private int rotateRight(int t) {
+		int l = left[t];
+		left[t] = right[l];
+		right[l] = t;
+		update(t);
+		update(l);
+		return l;
+	}
+
+	private int rotateLeft(int t) {
+		int r = right[t];
+		right[t] = left[r];
+		left[r] = t;
+		update(t);
+		update(r);
+		return r;
+	}
+
+	private void update(int t) {
+		double m = hi[t];
+		if (left[t] != NIL && maxHi[left[t]] > m)
+			m = maxHi[left[t]];
+		if (right[t] != NIL && maxHi[right[t]] > m)
+			m = maxHi[right[t]];
+		maxHi[t] = m;
+	}
+
+	// order of the keys (lo, handle); handles make the keys unique
+	private boolean less(int a, int b) {
+		return lo[a] < lo[b] || (lo[a] == lo[b] && a < b);
+	}
+
+	// balanced tree of order[from, to)
+	private int build(int[] order, int from, int to) {
+		if (from == to)
+			return NIL;
+		int mid = (from + to) >>> 1;
+		int t = order[mid];
+		left[t] = build(order, from, mid);
+		right[t] = build(order, mid + 1, to);
+		update(t);
+		return t;
+	}
+
+	// merge sort of handles by key
+	private void sort(int[] a, int[] tmp, int from, int to) {
+		if (to - from < 2)
+			return;
+		int mid = (from + to) >>> 1;
+		sort(a, tmp, from, mid);
+		sort(a, tmp, mid, to);
+		if (!less(a[mid], a[mid - 1]))
+			return;
+		System.arraycopy(a, from, tmp, from, to - from);
+		int i = from, j = mid;
+		for (int k = from; k < to; k++)
+			a[k] = (j == to || (i < mid && !less(tmp[j], tmp[i]))) ? tmp[i++] : tmp[j++];
+	}
+
+	private int random() {
+		// xorshift
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+	private void allocate(int capacity) {
+		if (lo == null) {
+			lo = new double[capacity];
+			hi = new double[capacity];
+			maxHi = new double[capacity];
+			left = new int[capacity];
+			right = new int[capacity];
+			priority = new int[capacity];
+		} else {
+			lo = Arrays.copyOf(lo, capacity);
+			hi = Arrays.copyOf(hi, capacity);
+			maxHi = Arrays.copyOf(maxHi, capacity);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			priority = Arrays.copyOf(priority, capacity);
+		}
+	}
+
+	private void check(int handle) {
+		if (!isUsed(handle))
+			throw new IndexOutOfBoundsException("Handle " + handle + " is not in the index");
+	}
+}
@@ -0,0 +1,341 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * IntervalNewton isolates the zeros of a function of one variable,
+ * given by interval extensions of the function and of its derivative.
+ * <p>
+ * A box X is narrowed by the interval Newton operator
+ * N(X) = m - f(m) / f'(X), m the midpoint of X. The division is the
+ * extended one (IAMath.divExtended()), so where f'(X) contains zero
+ * N(X) may split X in two and drop the part without zeros in between.
+ * If N(X) lies in the interior of X, X contains exactly one zero, and
+ * the Newton steps then converge quadratically. X is bisected only if
+ * N(X) does not make it at least a quarter narrower.
+ * <p>
+ * No zero is lost: every zero of f in the searched interval is in one
+ * of the returned roots. A root is either verified (it contains a
+ * zero, proved by the Newton operator or by a sign change of f at its
+ * ends, and possibly a unique one), or just a box of the tolerance
+ * width on which f could not be shown to be nonzero.
+ * <p>
+ * The solver keeps no state between calls; the parallel findRoots()
+ * searches the sub-intervals concurrently, so f and the derivative
+ * must be thread-safe then.
+ */
+public class IntervalNewton {
+
+	/**
+	 * an interval which may contain a zero of f
+	 */
+	public static class Root {
+		private final RealInterval x;
+		private final boolean exists, unique;
+
+		Root(RealInterval x, boolean exists, boolean unique) {
+			this.x = x;
+			this.exists = exists;
+			this.unique = unique;
+		}
+
+		public RealInterval interval() {
+			return x;
+		}
+
+		/**
+		 * whether the interval is proved to contain a zero
+		 */
+		public boolean containsRoot() {
+			return exists;
+		}
+
+		/**
+		 * whether the interval is proved to contain exactly one zero
+		 */
+		public boolean isUnique() {
+			return unique;
+		}
+
+		@Override
+		public String toString() {
+			return x + (unique ? " unique root" : exists ? " root" : " possible root");
+		}
+	}
+
+	private static final int MAX_POLISH_STEPS = 64;
+
+	private final IntervalFunction f, derivative;
+	private final double tolerance;
+
+	/**
+	 * @param tolerance boxes of this width or less are not split any
+	 *        more; the roots proved unique are narrowed further, as far
+	 *        as the Newton steps make progress
+	 */
+	public IntervalNewton(IntervalFunction f, IntervalFunction derivative, double tolerance) {
+		if (!(tolerance >= 0))
+			throw new IllegalArgumentException("IntervalNewton(tolerance=" + tolerance + "): must have tolerance>=0");
+		this.f = f;
+		this.derivative = derivative;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * the roots in x, ordered from left to right
+	 */
+	public List<Root> findRoots(RealInterval x) {
+		List<Root> roots = new ArrayList<Root>();
+		solve(x, roots);
+		return merge(roots);
+	}
+
+	/**
+	 * the same as findRoots(x), but x is cut into <code>parts</code>
+	 * equal sub-intervals searched by the executor concurrently;
+	 * an unbounded x is searched as one part
+	 */
+	public List<Root> findRoots(RealInterval x, int parts, ExecutorService executor)
+			throws InterruptedException {
+		if (parts < 1)
+			throw new IllegalArgumentException("findRoots(parts=" + parts + "): must have parts>=1");
+		double step = (x.hi - x.lo) / parts;
+		if (Double.isInfinite(step) || x.isEmpty())
+			parts = 1;
+		List<Future<List<Root>>> futures = new ArrayList<Future<List<Root>>>(parts);
+		for (int i = 0; i < parts; i++) {
+			final RealInterval part = new RealInterval(
+					i == 0 ? x.lo : x.lo + i * step,
+					i == parts - 1 ? x.hi : x.lo + (i + 1) * step);
+			futures.add(executor.submit(new Callable<List<Root>>() {
+				public List<Root> call() {
+					List<Root> roots = new ArrayList<Root>();
+					solve(part, roots);
+					return roots;
+				}
+			}));
+		}
+		List<Root> roots = new ArrayList<Root>();
+		try {
+			for (Future<List<Root>> future : futures)
+				roots.addAll(future.get());
+		} catch (ExecutionException e) {
+			for (Future<List<Root>> future : futures)
+				future.cancel(true);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+		return merge(roots);
+	}
+
+	/**
+	 * the hull of the zeros of f in x, from the leftmost and the
+	 * rightmost root only: the search stops at the first root found
+	 * from either end. Each search takes at most <code>maxBoxes</code>
+	 * boxes; where it runs out, the bound is the one of the boxes left,
+	 * so the hull still contains all the zeros.
+	 * 
+	 * @return RealInterval.EMPTY if f has no zero in x
+	 */
+	public RealInterval rootHull(RealInterval x, int maxBoxes) {
+		if (maxBoxes < 1)
+			throw new IllegalArgumentException("rootHull(maxBoxes=" + maxBoxes + "): must have maxBoxes>=1");
+		if (x.isEmpty())
+			return RealInterval.EMPTY;
+		double lo = outerRoot(x, true, maxBoxes);
+		if (Double.isNaN(lo))
+			return RealInterval.EMPTY;
+		double hi = outerRoot(new RealInterval(lo, x.hi), false, maxBoxes);
+		if (Double.isNaN(hi))
+			return RealInterval.EMPTY; // only if f is not inclusion monotonic
+		return new RealInterval(lo, hi);
+	}
+
+	/*
+	 * The lower bound of the leftmost root (or the upper bound of the
+	 * rightmost one), NaN if there is none; solve() stopping at the
+	 * first root, searching from the given end.
+	 */
+	private double outerRoot(RealInterval x, boolean left, int budget) {
+		ArrayDeque<RealInterval> stack = new ArrayDeque<RealInterval>();
+		stack.push(x);
+		while (!stack.isEmpty()) {
+			RealInterval box = stack.pop();
+			if (budget-- <= 0)
+				return left ? box.lo : box.hi; // box is the outermost left
+			if (!f.value(box).contains(0))
+				continue;
+			double m = split(box, 0.5);
+			if (box.wid() <= tolerance || Double.isNaN(m))
+				return left ? box.lo : box.hi;
+			IntervalUnion n = newton(box, m);
+			if (n.isEmpty())
+				continue;
+			if (n.size() == 1) {
+				RealInterval piece = n.get(0);
+				if (piece.lo > box.lo && piece.hi < box.hi) {
+					RealInterval root = polish(piece);
+					return left ? root.lo : root.hi;
+				}
+				double w = piece.wid();
+				if (!(w <= 0.75 * box.wid() && w < box.wid())) {
+					double c = split(piece, BISECTION);
+					if (Double.isNaN(c))
+						return left ? piece.lo : piece.hi;
+					push(stack, new RealInterval(piece.lo, c), new RealInterval(c, piece.hi), left);
+				} else
+					stack.push(piece);
+			} else
+				push(stack, n.get(0), n.get(1), left);
+		}
+		return Double.NaN;
+	}
+
+	// pushes the boxes so the one at the searched end comes first
+	private static void push(ArrayDeque<RealInterval> stack, RealInterval l, RealInterval r, boolean left) {
+		stack.push(left ? r : l);
+		stack.push(left ? l : r);
+	}
+
+	/*
+	 * Depth first, left boxes first, so the roots come out ordered.
+	 */
+	private void solve(RealInterval x, List<Root> roots) {
+		ArrayDeque<RealInterval> stack = new ArrayDeque<RealInterval>();
+		if (!x.isEmpty())
+			stack.push(x);
+		while (!stack.isEmpty()) {
+			RealInterval box = stack.pop();
+			if (!f.value(box).contains(0))
+				continue;
+			double m = split(box, 0.5);
+			if (box.wid() <= tolerance || Double.isNaN(m)) {
+				roots.add(unresolved(box));
+				continue;
+			}
+			IntervalUnion n = newton(box, m);
+			if (n.isEmpty())
+				continue;
+			if (n.size() == 1) {
+				RealInterval piece = n.get(0);
+				if (piece.lo > box.lo && piece.hi < box.hi) {
+					roots.add(new Root(polish(piece), true, true));
+					continue;
+				}
+				double w = piece.wid();
+				if (!(w <= 0.75 * box.wid() && w < box.wid())) { // no progress, bisect
+					double c = split(piece, BISECTION);
+					if (Double.isNaN(c)) {
+						roots.add(unresolved(piece));
+						continue;
+					}
+					stack.push(new RealInterval(c, piece.hi));
+					stack.push(new RealInterval(piece.lo, c));
+				} else
+					stack.push(piece);
+			} else {
+				stack.push(n.get(1));
+				stack.push(n.get(0));
+			}
+		}
+	}
+
+	// N(x) intersected with x
+	private IntervalUnion newton(RealInterval x, double m) {
+		RealInterval point = new RealInterval(m);
+		RealInterval fm = f.value(point), dx = derivative.value(x);
+		// f or f' undefined there (m out of the domain of a partial f):
+		// the step proves nothing, x is left to the bisection
+		if (fm.isEmpty() || dx.isEmpty())
+			return new IntervalUnion(x);
+		IntervalUnion q = IAMath.divExtended(fm, dx);
+		if (q.size() == 2)
+			return IntervalUnion.union(IAMath.sub(point, q.get(1)), IAMath.sub(point, q.get(0))).intersect(x);
+		return new IntervalUnion(IAMath.sub(point, q.hull())).intersect(x);
+	}
+
+	// x is known to contain a single zero
+	private RealInterval polish(RealInterval x) {
+		for (int i = 0; i < MAX_POLISH_STEPS; i++) {
+			double m = split(x, 0.5);
+			if (Double.isNaN(m))
+				break;
+			IntervalUnion n = newton(x, m);
+			if (n.size() != 1)
+				break; // can not happen in exact arithmetic
+			RealInterval next = n.get(0);
+			if (!(next.lo > x.lo || next.hi < x.hi))
+				break;
+			x = next;
+		}
+		return x;
+	}
+
+	// whether the Newton operator proves a single zero in x
+	private boolean isUnique(RealInterval x) {
+		double m = split(x, 0.5);
+		if (Double.isNaN(m))
+			return false;
+		IntervalUnion n = newton(x, m);
+		return n.size() == 1 && n.get(0).lo > x.lo && n.get(0).hi < x.hi;
+	}
+
+	private Root unresolved(RealInterval x) {
+		boolean exists = false;
+		if (!Double.isInfinite(x.lo) && !Double.isInfinite(x.hi)) {
+			RealInterval fl = f.value(new RealInterval(x.lo));
+			RealInterval fh = f.value(new RealInterval(x.hi));
+			exists = (fl.hi < 0 && fh.lo > 0) || (fl.lo > 0 && fh.hi < 0)
+					|| isZero(fl) || isZero(fh);
+		}
+		boolean unique = exists && !derivative.value(x).contains(0);
+		return new Root(x, exists, unique);
+	}
+
+	private static boolean isZero(RealInterval y) {
+		return y.lo == 0 && y.hi == 0;
+	}
+
+	/*
+	 * Boxes are bisected a little off the middle: zeros at the midpoint
+	 * (0 in a symmetric box, typically) stall the Newton step and would
+	 * sit on the boundary of both halves.
+	 */
+	private static final double BISECTION = 0.4921875;
+
+	private static double split(RealInterval x, double ratio) {
+		return RealInterval.split(x.lo, x.hi, ratio);
+	}
+
+	/*
+	 * Neighbouring boxes (e.g. from the parts of the parallel search)
+	 * may report the same zero; overlapping roots are joined. The join
+	 * of a proved root is unique if f is monotonic on it, so it can hold
+	 * only one zero; otherwise a Newton step must prove it.
+	 */
+	private List<Root> merge(List<Root> roots) {
+		List<Root> merged = new ArrayList<Root>(roots.size());
+		for (Root r : roots) {
+			int last = merged.size() - 1;
+			if (last >= 0 && merged.get(last).x.hi >= r.x.lo) {
+				Root l = merged.get(last);
+				RealInterval hull = new RealInterval(Math.min(l.x.lo, r.x.lo), Math.max(l.x.hi, r.x.hi));
+				boolean unique = (l.exists || r.exists) && !derivative.value(hull).contains(0)
+						|| isUnique(hull);
+				merged.set(last, new Root(hull, unique || l.exists || r.exists, unique));
+			} else
+				merged.add(r);
+		}
+		return merged;
+	}
+}
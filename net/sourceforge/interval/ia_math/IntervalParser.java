@@ -0,0 +1,345 @@
+package net.sourceforge.interval.ia_math;
+
+import java.nio.ByteBuffer;
+
+/**
+ * IntervalParser reads interval literals straight from a CharSequence,
+ * a byte[] (ASCII) or a ByteBuffer without creating substrings and
+ * without using exceptions for malformed input.
+ * <p>
+ * It accepts the same literals as RealInterval.valueOf(): a single finite
+ * double, or two doubles separated by ';' or ',' and enclosed in square
+ * brackets, e.g. <code>[-1.5e3; 2]</code>. Infinite bounds may be written
+ * as <code>inf</code> or <code>Infinity</code> (with a sign). Hexadecimal
+ * and suffixed (<code>1d</code>, <code>1f</code>) doubles are not accepted.
+ * <p>
+ * Numbers with up to 18 significant digits and a decimal exponent within
+ * +/-22 are converted without allocation and correctly rounded; other
+ * numbers are passed to Double.parseDouble().
+ * <p>
+ * A parser keeps the result of the last call (<code>lo()</code>,
+ * <code>hi()</code>, <code>end()</code>), so it is not thread-safe;
+ * use one instance per thread.
+ */
+public final class IntervalParser {
+
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+		1e21, 1e22
+	};
+	private static final int MAX_DIGITS = 18;
+
+	// the source, only one of them is set
+	private CharSequence chars;
+	private byte[] bytes;
+	private ByteBuffer buffer;
+	private int limit;
+
+	private double lo, hi;
+	private double value;
+	private int end;
+	private char[] slowPath = new char[32];
+
+	/**
+	 * lower bound of the last parsed interval
+	 */
+	public double lo() {
+		return lo;
+	}
+
+	/**
+	 * upper bound of the last parsed interval
+	 */
+	public double hi() {
+		return hi;
+	}
+
+	/**
+	 * position right after the last parsed interval; after a failure
+	 * the position where the malformed literal starts
+	 */
+	public int end() {
+		return end;
+	}
+
+	public RealInterval toRealInterval() {
+		return new RealInterval(lo, hi);
+	}
+
+	/**
+	 * parses one interval starting at <code>from</code>, leading white
+	 * space is skipped. Returns false if there is no valid literal there.
+	 */
+	public boolean parse(CharSequence s, int from) {
+		return parse(s, from, s.length());
+	}
+
+	public boolean parse(CharSequence s, int from, int to) {
+		source(s, null, null, from, to);
+		return record(from);
+	}
+
+	public boolean parse(byte[] s, int from, int to) {
+		source(null, s, null, from, to);
+		return record(from);
+	}
+
+	/**
+	 * the same for a ByteBuffer; positions are absolute and the position
+	 * of the buffer is not changed
+	 */
+	public boolean parse(ByteBuffer s, int from, int to) {
+		source(null, null, s, from, to);
+		return record(from);
+	}
+
+	/**
+	 * parses white space separated intervals from <code>[from, to)</code>
+	 * into <code>dst</code> starting from <code>dst[dstFrom]</code>.
+	 * Stops at the end of the input, at the end of <code>dst</code> or at
+	 * the first malformed literal (<code>end()</code> tells where); a
+	 * literal not followed by white space or the end of the input is
+	 * malformed.
+	 * Returns the number of parsed intervals.
+	 */
+	public int parseAll(CharSequence s, int from, int to, IntervalVector dst, int dstFrom) {
+		source(s, null, null, from, to);
+		return records(from, dst, dstFrom);
+	}
+
+	public int parseAll(byte[] s, int from, int to, IntervalVector dst, int dstFrom) {
+		source(null, s, null, from, to);
+		return records(from, dst, dstFrom);
+	}
+
+	public int parseAll(ByteBuffer s, int from, int to, IntervalVector dst, int dstFrom) {
+		source(null, null, s, from, to);
+		return records(from, dst, dstFrom);
+	}
+
+	private void source(CharSequence c, byte[] b, ByteBuffer bb, int from, int to) {
+		int length = c != null ? c.length() : b != null ? b.length : bb.limit();
+		if (from < 0 || to > length || from > to)
+			throw new IndexOutOfBoundsException("[" + from + ", " + to + ") is out of input of length " + length);
+		chars = c;
+		bytes = b;
+		buffer = bb;
+		limit = to;
+	}
+
+	private int ch(int i) {
+		if (chars != null)
+			return chars.charAt(i);
+		if (bytes != null)
+			return bytes[i] & 0xff;
+		return buffer.get(i) & 0xff;
+	}
+
+	private int records(int pos, IntervalVector dst, int dstFrom) {
+		final double[] l = dst.lo, h = dst.hi;
+		int i = dstFrom;
+		end = pos;
+		while (i < l.length) {
+			pos = skipSpaces(end);
+			if (pos == limit) {
+				end = pos;
+				break;
+			}
+			if (!record(pos))
+				break;
+			// records must be separated, "[1;2][3;4]" or "1[2;3]" is malformed
+			if (end < limit && ch(end) > ' ') {
+				end = pos;
+				break;
+			}
+			l[i] = lo;
+			h[i] = hi;
+			i++;
+		}
+		return i - dstFrom;
+	}
+
+	private boolean record(int start) {
+		end = start;
+		int pos = skipSpaces(start);
+		if (pos < limit && ch(pos) == '[') {
+			pos = number(skipSpaces(pos + 1));
+			if (pos < 0)
+				return false;
+			double l = value;
+			pos = skipSpaces(pos);
+			if (pos == limit || (ch(pos) != ';' && ch(pos) != ','))
+				return false;
+			pos = number(skipSpaces(pos + 1));
+			if (pos < 0)
+				return false;
+			double h = value;
+			pos = skipSpaces(pos);
+			if (pos == limit || ch(pos) != ']' || !(l <= h))
+				return false;
+			lo = l;
+			hi = h;
+			end = pos + 1;
+			return true;
+		}
+		pos = number(pos);
+		if (pos < 0 || Double.isInfinite(value))
+			return false;
+		// a single number has to be followed by a separator
+		if (pos < limit && isWordChar(ch(pos)))
+			return false;
+		lo = hi = value;
+		end = pos;
+		return true;
+	}
+
+	private int skipSpaces(int pos) {
+		while (pos < limit && ch(pos) <= ' ')
+			pos++;
+		return pos;
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWordChar(int c) {
+		return isDigit(c) || c == '.' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private boolean matches(int pos, String word) {
+		if (limit - pos < word.length())
+			return false;
+		for (int k = 0; k < word.length(); k++)
+			if (ch(pos + k) != word.charAt(k))
+				return false;
+		return true;
+	}
+
+	/*
+	 * parses a double starting exactly at pos into value,
+	 * returns the position after it or -1
+	 */
+	private int number(int pos) {
+		final int start = pos;
+		boolean negative = false;
+		if (pos < limit && (ch(pos) == '-' || ch(pos) == '+')) {
+			negative = ch(pos) == '-';
+			pos++;
+		}
+		if (matches(pos, "Infinity") || matches(pos, "inf")) {
+			value = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			return pos + (ch(pos) == 'I' ? 8 : 3);
+		}
+		long mantissa = 0;
+		int digits = 0, exp10 = 0;
+		boolean anyDigit = false, dropped = false;
+		int c;
+		while (pos < limit && isDigit(c = ch(pos))) {
+			anyDigit = true;
+			if (digits < MAX_DIGITS) {
+				if (mantissa != 0 || c != '0') {
+					mantissa = mantissa * 10 + (c - '0');
+					digits++;
+				}
+			} else {
+				exp10++;
+				dropped |= c != '0';
+			}
+			pos++;
+		}
+		if (pos < limit && ch(pos) == '.') {
+			pos++;
+			while (pos < limit && isDigit(c = ch(pos))) {
+				anyDigit = true;
+				if (digits < MAX_DIGITS) {
+					if (mantissa != 0 || c != '0') {
+						mantissa = mantissa * 10 + (c - '0');
+						digits++;
+					}
+					exp10--;
+				} else
+					dropped |= c != '0';
+				pos++;
+			}
+		}
+		if (!anyDigit)
+			return -1;
+		if (pos < limit && (ch(pos) == 'e' || ch(pos) == 'E')) {
+			pos++;
+			boolean negativeExp = false;
+			if (pos < limit && (ch(pos) == '-' || ch(pos) == '+')) {
+				negativeExp = ch(pos) == '-';
+				pos++;
+			}
+			if (pos == limit || !isDigit(ch(pos)))
+				return -1;
+			int e = 0;
+			while (pos < limit && isDigit(c = ch(pos))) {
+				if (e < 100000)
+					e = e * 10 + (c - '0');
+				pos++;
+			}
+			exp10 += negativeExp ? -e : e;
+		}
+		double v;
+		if (mantissa == 0)
+			v = 0.0;
+		else {
+			v = dropped ? Double.NaN : toDouble(mantissa, exp10);
+			if (v != v)
+				v = Math.abs(slowPath(start, pos));
+		}
+		value = negative ? -v : v;
+		return pos;
+	}
+
+	/*
+	 * mantissa * 10^exp10 rounded to nearest, or NaN if it can not be
+	 * decided cheaply. mantissa < 10^18 is split into a + b exactly,
+	 * the product (quotient) by the exact power of ten is computed as an
+	 * unevaluated sum h + l with relative error below 2^-96, which is
+	 * enough to round it correctly unless it is too close to a midpoint.
+	 */
+	private static double toDouble(long mantissa, int exp10) {
+		if (exp10 < -22 || exp10 > 22)
+			return Double.NaN;
+		double a = (double) mantissa;
+		double b = (double) (mantissa - (long) a);
+		if (b == 0) // one correctly rounded operation on exact operands
+			return exp10 >= 0 ? a * POW10[exp10] : a / POW10[-exp10];
+		double h, l;
+		if (exp10 >= 0) {
+			double p = POW10[exp10];
+			h = a * p;
+			l = Math.fma(a, p, -h) + b * p;
+		} else {
+			double p = POW10[-exp10];
+			h = a / p;
+			l = (Math.fma(-h, p, a) + b) / p;
+		}
+		double s = h + l;
+		double t = l - (s - h);
+		if (t == 0)
+			return s;
+		double neighbour = t > 0 ? Math.nextUp(s) : Math.nextDown(s);
+		double half = Math.abs(neighbour - s) * 0.5;
+		double err = Math.abs(s) * 0x1p-90;
+		if (Math.abs(t) + err < half)
+			return s;
+		if (Math.abs(t) - err > half)
+			return neighbour;
+		return Double.NaN;
+	}
+
+	private double slowPath(int from, int to) {
+		int n = to - from;
+		if (slowPath.length < n)
+			slowPath = new char[Math.max(n, 2 * slowPath.length)];
+		for (int k = 0; k < n; k++)
+			slowPath[k] = (char) ch(from + k);
+		// the syntax has been checked already, so this does not throw
+		return Double.parseDouble(new String(slowPath, 0, n));
+	}
+}
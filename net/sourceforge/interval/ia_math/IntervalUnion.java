@@ -0,0 +1,115 @@
+package net.sourceforge.interval.ia_math;
+
+import net.sourceforge.interval.ia_math.exceptions.IARuntimeException;
+
+/**
+ * IntervalUnion is a union of at most two disjoint closed intervals:
+ * the result of the extended division IAMath.divExtended(), where a
+ * divisor containing zero splits the quotient into two half-lines.
+ * <p>
+ * The pieces are ordered, get(0) lies to the left of get(1).
+ * Unions are immutable.
+ */
+public class IntervalUnion {
+
+	public static final IntervalUnion EMPTY = new IntervalUnion(0, 0, 0, 0, 0);
+
+	private final double lo0, hi0, lo1, hi1;
+	private final int size;
+
+	private IntervalUnion(double lo0, double hi0, double lo1, double hi1, int size) {
+		this.lo0 = lo0;
+		this.hi0 = hi0;
+		this.lo1 = lo1;
+		this.hi1 = hi1;
+		this.size = size;
+	}
+
+	public IntervalUnion(RealInterval x) {
+		this(x.lo, x.hi, 0, 0, x.isEmpty() ? 0 : 1);
+	}
+
+	/**
+	 * the union of x and y, given in any order; overlapping or touching
+	 * intervals are merged into one
+	 */
+	public static IntervalUnion union(RealInterval x, RealInterval y) {
+		if (x.isEmpty())
+			return new IntervalUnion(y);
+		if (y.isEmpty())
+			return new IntervalUnion(x);
+		return of(x.lo, x.hi, y.lo, y.hi);
+	}
+
+	static IntervalUnion of(double xl, double xh, double yl, double yh) {
+		if (!(xl <= xh) || !(yl <= yh))
+			throw new IARuntimeException("IntervalUnion([" + xl + "," + xh + "], [" + yl + "," + yh + "]): must have lo<=hi");
+		if (yl < xl) {
+			double l = xl, h = xh;
+			xl = yl; xh = yh;
+			yl = l; yh = h;
+		}
+		if (yl <= xh)
+			return new IntervalUnion(xl, Math.max(xh, yh), 0, 0, 1);
+		return new IntervalUnion(xl, xh, yl, yh, 2);
+	}
+
+	/**
+	 * number of the disjoint intervals, 0, 1 or 2
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public RealInterval get(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Interval " + i + " of a union of " + size);
+		return i == 0 ? new RealInterval(lo0, hi0) : new RealInterval(lo1, hi1);
+	}
+
+	/**
+	 * the smallest interval containing the union; RealInterval.EMPTY
+	 * if the union is empty
+	 */
+	public RealInterval hull() {
+		if (size == 0)
+			return RealInterval.EMPTY;
+		return new RealInterval(lo0, size == 1 ? hi0 : hi1);
+	}
+
+	public boolean contains(double value) {
+		return (size > 0 && RealInterval.contains(lo0, hi0, value))
+				|| (size > 1 && RealInterval.contains(lo1, hi1, value));
+	}
+
+	/**
+	 * the part of the union inside x; this is where the gap pays off:
+	 * a piece outside x disappears and the hull shrinks to the other one
+	 */
+	public IntervalUnion intersect(RealInterval x) {
+		double l0 = Math.max(lo0, x.lo), h0 = Math.min(hi0, x.hi);
+		double l1 = Math.max(lo1, x.lo), h1 = Math.min(hi1, x.hi);
+		boolean has0 = size > 0 && l0 <= h0;
+		boolean has1 = size > 1 && l1 <= h1;
+		if (has0 && has1)
+			return new IntervalUnion(l0, h0, l1, h1, 2);
+		if (has0)
+			return new IntervalUnion(l0, h0, 0, 0, 1);
+		if (has1)
+			return new IntervalUnion(l1, h1, 0, 0, 1);
+		return EMPTY;
+	}
+
+	@Override
+	public String toString() {
+		if (size == 0)
+			return "{}";
+		if (size == 1)
+			return get(0).toString();
+		return get(0) + " U " + get(1);
+	}
+}
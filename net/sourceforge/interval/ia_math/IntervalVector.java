@@ -0,0 +1,96 @@
+package net.sourceforge.interval.ia_math;
+
+import net.sourceforge.interval.ia_math.exceptions.IARuntimeException;
+
+/**
+ * IntervalVector is a fixed size vector of real intervals kept as two
+ * parallel arrays of lower and upper bounds.
+ * <p>
+ * It is intended for batch evaluation: the bulk versions of
+ * <code>add</code>, <code>sub</code>, <code>mul</code> and <code>div</code>
+ * in IAMath work element by element on such vectors and write into a
+ * destination vector supplied by the caller, so no RealInterval is
+ * created per element.
+ */
+public class IntervalVector {
+
+	// package-private like RealInterval.lo/hi so the kernels
+	// in IAMath can loop over the arrays directly
+	final double[] lo;
+	final double[] hi;
+
+	/**
+	 * creates a vector of <code>size</code> intervals [0, 0]
+	 */
+	public IntervalVector(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("IntervalVector(size=" + size + "): must have size>=0");
+		lo = new double[size];
+		hi = new double[size];
+	}
+
+	public IntervalVector(RealInterval[] ii) {
+		this(ii.length);
+		for (int i = 0; i < ii.length; i++) {
+			lo[i] = ii[i].lo;
+			hi[i] = ii[i].hi;
+		}
+	}
+
+	// copy-constructor
+	public IntervalVector(IntervalVector x) {
+		lo = x.lo.clone();
+		hi = x.hi.clone();
+	}
+
+	public int size() {
+		return lo.length;
+	}
+
+	public double lo(int i) {
+		return lo[i];
+	}
+
+	public double hi(int i) {
+		return hi[i];
+	}
+
+	public double wid(int i) {
+		return Math.abs(hi[i] - lo[i]);
+	}
+
+	public void set(int i, double lo, double hi) throws IARuntimeException {
+		if (lo <= hi) {
+			this.lo[i] = lo;
+			this.hi[i] = hi;
+		}
+		else throw new IARuntimeException("IntervalVector.set(i=" + i + ", x=" + lo + ", y=" + hi + "): must have x<=y");
+	}
+
+	public void set(int i, RealInterval x) {
+		lo[i] = x.lo;
+		hi[i] = x.hi;
+	}
+
+	public RealInterval get(int i) {
+		return new RealInterval(lo[i], hi[i]);
+	}
+
+	public RealInterval[] toArray() {
+		RealInterval[] res = new RealInterval[lo.length];
+		for (int i = 0; i < res.length; i++)
+			res[i] = new RealInterval(lo[i], hi[i]);
+		return res;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("{");
+		for (int i = 0; i < lo.length; i++) {
+			if (i > 0)
+				s.append(", ");
+			s.append(get(i));
+		}
+		return s.append('}').toString();
+	}
+}
@@ -0,0 +1,99 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.Random;
+
+/**
+ * MulDivBenchmark compares the two kernels of IAMath.mul() and div(),
+ * the sign case analysis and the branch-free min/max of RMath, on
+ * operands drawn from several sign distributions, and checks that both
+ * give the same bounds.
+ * <p>
+ * Run it as <code>java net.sourceforge.interval.ia_math.MulDivBenchmark [n]</code>;
+ * it prints the time per operation in ns for every distribution.
+ */
+public class MulDivBenchmark {
+
+	private static final String[] DISTRIBUTIONS = {
+		"positive", "negative", "mixed, no zero", "mixed", "containing zero"
+	};
+
+	public static void main(String argv[]) {
+		int n = argv.length > 0 ? Integer.parseInt(argv[0]) : 1 << 16;
+		Random r = new Random(42);
+		System.out.println("distribution        mul cases  mul minmax  div cases  div minmax");
+		for (int d = 0; d < DISTRIBUTIONS.length; d++) {
+			RealInterval[] x = new RealInterval[n], y = new RealInterval[n];
+			for (int i = 0; i < n; i++) {
+				x[i] = random(r, d);
+				y[i] = random(r, d);
+			}
+			RealInterval[] yd = new RealInterval[n]; // divisors without zero
+			for (int i = 0; i < n; i++)
+				yd[i] = y[i].contains(0) ? random(r, r.nextInt(3)) : y[i];
+
+			check(x, y, yd);
+			double[] t = new double[4];
+			for (int round = 0; round < 5; round++) { // the first ones warm up
+				t[0] = time(x, y, false, false);
+				t[1] = time(x, y, true, false);
+				t[2] = time(x, yd, false, true);
+				t[3] = time(x, yd, true, true);
+			}
+			System.out.printf("%-18s %10.1f %11.1f %10.1f %11.1f%n", DISTRIBUTIONS[d], t[0], t[1], t[2], t[3]);
+		}
+	}
+
+	/*
+	 * 0: positive, 1: negative, 2: either of them, 3: any of the three
+	 * classes including intervals containing zero, 4: containing zero only
+	 */
+	private static RealInterval random(Random r, int distribution) {
+		int sign = distribution < 2 ? distribution : distribution == 2 ? r.nextInt(2)
+				: distribution == 3 ? r.nextInt(3) : 2;
+		double a = r.nextDouble() * 100 + 1e-3, b = a + r.nextDouble() * 10;
+		switch (sign) {
+		case 0:
+			return new RealInterval(a, b);
+		case 1:
+			return new RealInterval(-b, -a);
+		default:
+			return new RealInterval(-a, b);
+		}
+	}
+
+	// ns per operation
+	private static double time(RealInterval[] x, RealInterval[] y, boolean branchFree, boolean div) {
+		double sum = 0;
+		long start = System.nanoTime();
+		if (div)
+			if (branchFree)
+				for (int k = 0; k < 20; k++)
+					for (int i = 0; i < x.length; i++)
+						sum += IAMath.divBranchFree(x[i], y[i]).hi;
+			else
+				for (int k = 0; k < 20; k++)
+					for (int i = 0; i < x.length; i++)
+						sum += IAMath.div(x[i], y[i]).hi;
+		else
+			if (branchFree)
+				for (int k = 0; k < 20; k++)
+					for (int i = 0; i < x.length; i++)
+						sum += IAMath.mulBranchFree(x[i], y[i]).hi;
+			else
+				for (int k = 0; k < 20; k++)
+					for (int i = 0; i < x.length; i++)
+						sum += IAMath.mul(x[i], y[i]).hi;
+		long end = System.nanoTime();
+		if (sum == 42) // keeps the results alive
+			System.out.println();
+		return (end - start) / (20.0 * x.length);
+	}
+
+	private static void check(RealInterval[] x, RealInterval[] y, RealInterval[] yd) {
+		for (int i = 0; i < x.length; i++) {
+			RealInterval m = IAMath.mul(x[i], y[i]), q = IAMath.div(x[i], yd[i]);
+			if (!m.equals(IAMath.mulBranchFree(x[i], y[i])) || !q.equals(IAMath.divBranchFree(x[i], yd[i])))
+				System.out.println("Kernels differ on " + x[i] + ", " + y[i] + ", " + yd[i]);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * NarrowingOperator is a primitive constraint of a Propagator network:
+ * a contractor of IANarrow applied to some variables of the network,
+ * given by their indices.
+ * <p>
+ * The factory methods wrap the IANarrow primitives; the argument order
+ * is theirs, the result first (add(z, x, y) is z = x + y). Other
+ * constraints can be added by overriding contract().
+ */
+public abstract class NarrowingOperator {
+
+	private final int[] variables;
+
+	protected NarrowingOperator(int... variables) {
+		for (int v : variables)
+			if (v < 0)
+				throw new IllegalArgumentException("NarrowingOperator(variable=" + v + "): must have variable>=0");
+		this.variables = variables.clone();
+	}
+
+	/**
+	 * the indices of the variables, in the order of the arguments
+	 * of contract()
+	 */
+	public int[] variables() {
+		return variables.clone();
+	}
+
+	int arity() {
+		return variables.length;
+	}
+
+	int variable(int i) {
+		return variables[i];
+	}
+
+	/**
+	 * narrows the domains of the variables in place, the way the
+	 * IANarrow.contractX() methods do
+	 */
+	public abstract NarrowingStatus contract(RealInterval[] args);
+
+	/* z = x + y */
+	public static NarrowingOperator add(int z, int x, int y) {
+		return new NarrowingOperator(z, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractAdd(args);
+			}
+		};
+	}
+
+	/* z = x - y */
+	public static NarrowingOperator sub(int z, int x, int y) {
+		return new NarrowingOperator(z, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractSub(args);
+			}
+		};
+	}
+
+	/* z = x * y */
+	public static NarrowingOperator mul(int z, int x, int y) {
+		return new NarrowingOperator(z, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractMul(args);
+			}
+		};
+	}
+
+	/* z = x / y */
+	public static NarrowingOperator div(int z, int x, int y) {
+		return new NarrowingOperator(z, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractDiv(args);
+			}
+		};
+	}
+
+	/* z = -x */
+	public static NarrowingOperator negate(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractNegate(args);
+			}
+		};
+	}
+
+	/* z = exp(x) */
+	public static NarrowingOperator exp(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractExp(args);
+			}
+		};
+	}
+
+	/* z = log(x) */
+	public static NarrowingOperator log(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractLog(args);
+			}
+		};
+	}
+
+	/* z = sin(x) */
+	public static NarrowingOperator sin(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractSin(args);
+			}
+		};
+	}
+
+	/* z = cos(x) */
+	public static NarrowingOperator cos(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractCos(args);
+			}
+		};
+	}
+
+	/* z = tan(x) */
+	public static NarrowingOperator tan(int z, int x) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractTan(args);
+			}
+		};
+	}
+
+	/* z = x^n, n an integer */
+	public static NarrowingOperator power(int z, int x, final int n) {
+		return new NarrowingOperator(z, x) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractPower(args, n);
+			}
+		};
+	}
+
+	/* z = x^y */
+	public static NarrowingOperator pow(int z, int x, int y) {
+		return new NarrowingOperator(z, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractPow(args);
+			}
+		};
+	}
+
+	/* x = y */
+	public static NarrowingOperator equal(int x, int y) {
+		return new NarrowingOperator(x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractEquals(args);
+			}
+		};
+	}
+
+	/* r = x < y, r a boolean in [0, 1] */
+	public static NarrowingOperator lt(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractLt(args);
+			}
+		};
+	}
+
+	/* r = x <= y, r a boolean in [0, 1] */
+	public static NarrowingOperator le(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractLe(args);
+			}
+		};
+	}
+
+	/* r = x > y, r a boolean in [0, 1] */
+	public static NarrowingOperator gt(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractGt(args);
+			}
+		};
+	}
+
+	/* r = x >= y, r a boolean in [0, 1] */
+	public static NarrowingOperator ge(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractGe(args);
+			}
+		};
+	}
+
+	/* r = x == y, r a boolean in [0, 1] */
+	public static NarrowingOperator eq(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractEq(args);
+			}
+		};
+	}
+
+	/* r = x != y, r a boolean in [0, 1] */
+	public static NarrowingOperator ne(int r, int x, int y) {
+		return new NarrowingOperator(r, x, y) {
+			public NarrowingStatus contract(RealInterval[] args) {
+				return IANarrow.contractNe(args);
+			}
+		};
+	}
+}
@@ -0,0 +1,170 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.Arrays;
+
+/**
+ * NarrowingReport tells which bounds a narrowing step changed and by
+ * how much, and whether the change is worth propagating: at least the
+ * minimum improvement, a fraction of the old width. Wrap the step as
+ * <pre>
+ *   report.start(ii);
+ *   IANarrow.contractMul(ii);
+ *   report.finish(ii);
+ *   if (report.isSignificant()) ...
+ * </pre>
+ * A report is reused from step to step and allocates nothing once its
+ * arrays have grown to the arity of the steps; it is not thread-safe.
+ */
+public class NarrowingReport {
+
+	private final double minImprovement;
+	private double[] oldLo = new double[3], oldHi = new double[3];
+	private double[] newLo = new double[3], newHi = new double[3];
+	private int size;
+	private boolean empty;
+
+	/**
+	 * @param minImprovement the least relative change of a domain
+	 *        that is significant, 0 for any change
+	 */
+	public NarrowingReport(double minImprovement) {
+		if (!(minImprovement >= 0 && minImprovement <= 1))
+			throw new IllegalArgumentException("NarrowingReport(" + minImprovement + "): must have 0<=minImprovement<=1");
+		this.minImprovement = minImprovement;
+	}
+
+	public double minImprovement() {
+		return minImprovement;
+	}
+
+	/**
+	 * records the arguments before the step
+	 */
+	public void start(RealInterval[] ii) {
+		size = ii.length;
+		if (oldLo.length < size) {
+			oldLo = Arrays.copyOf(oldLo, size);
+			oldHi = Arrays.copyOf(oldHi, size);
+			newLo = Arrays.copyOf(newLo, size);
+			newHi = Arrays.copyOf(newHi, size);
+		}
+		for (int i = 0; i < size; i++) {
+			oldLo[i] = newLo[i] = ii[i].lo;
+			oldHi[i] = newHi[i] = ii[i].hi;
+		}
+		empty = false;
+	}
+
+	/**
+	 * records the arguments after the step
+	 *
+	 * @return true if the step narrowed some argument significantly
+	 */
+	public boolean finish(RealInterval[] ii) {
+		if (ii.length != size)
+			throw new IllegalArgumentException("finish(" + ii.length + " arguments): must have " + size + " like start()");
+		empty = false;
+		for (int i = 0; i < size; i++) {
+			newLo[i] = ii[i].lo;
+			newHi[i] = ii[i].hi;
+			empty |= ii[i].isEmpty();
+		}
+		return isSignificant();
+	}
+
+	/**
+	 * number of the arguments
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * whether the step left an empty argument
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	public boolean isChanged(int i) {
+		check(i);
+		return newLo[i] != oldLo[i] || newHi[i] != oldHi[i];
+	}
+
+	/**
+	 * how far the lower bound of argument i moved up
+	 */
+	public double lowerChange(int i) {
+		check(i);
+		return newLo[i] - oldLo[i];
+	}
+
+	/**
+	 * how far the upper bound of argument i moved down
+	 */
+	public double upperChange(int i) {
+		check(i);
+		return oldHi[i] - newHi[i];
+	}
+
+	/**
+	 * how much narrower argument i got
+	 */
+	public double widthChange(int i) {
+		check(i);
+		return (oldHi[i] - oldLo[i]) - (newHi[i] - newLo[i]);
+	}
+
+	/**
+	 * the change of argument i relative to its old width, 0..1; for an
+	 * unbounded argument the larger move of a bound relative to its
+	 * magnitude (at least 1), and 1 for a bound that got finite
+	 */
+	public double relativeChange(int i) {
+		check(i);
+		if (empty)
+			return 1;
+		double w = oldHi[i] - oldLo[i];
+		if (w < Double.POSITIVE_INFINITY)
+			return w > 0 ? widthChange(i) / w : 0;
+		return Math.max(relativeMove(oldLo[i], newLo[i]), relativeMove(oldHi[i], newHi[i]));
+	}
+
+	private static double relativeMove(double old, double bound) {
+		if (Double.isInfinite(old))
+			return Double.isInfinite(bound) ? 0 : 1;
+		return Math.min(1, Math.abs(bound - old) / Math.max(1, Math.abs(old)));
+	}
+
+	/**
+	 * whether argument i changed by at least the minimum improvement
+	 */
+	public boolean isSignificant(int i) {
+		return isChanged(i) && relativeChange(i) >= minImprovement;
+	}
+
+	/**
+	 * whether some argument changed by at least the minimum improvement
+	 */
+	public boolean isSignificant() {
+		for (int i = 0; i < size; i++)
+			if (isSignificant(i))
+				return true;
+		return false;
+	}
+
+	/**
+	 * the largest relativeChange() over the arguments
+	 */
+	public double maxRelativeChange() {
+		double m = 0;
+		for (int i = 0; i < size; i++)
+			m = Math.max(m, relativeChange(i));
+		return m;
+	}
+
+	private void check(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Argument " + i + " of " + size);
+	}
+}
@@ -0,0 +1,13 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * the outcome of a narrowing (contraction) step of IANarrow
+ */
+public enum NarrowingStatus {
+	/** no interval changed */
+	UNCHANGED,
+	/** some interval got narrower */
+	NARROWED,
+	/** the constraint has no solution in the given intervals */
+	EMPTY;
+}
@@ -0,0 +1,217 @@
+package net.sourceforge.interval.ia_math;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Propagator narrows the domains of a network of constraints to a
+ * fixpoint of their narrowing operators, in the way of HC4: every
+ * constraint is decomposed into primitive NarrowingOperators over
+ * auxiliary variables, one per subterm; e.g. z = x*y + exp(x) becomes
+ * <pre>
+ *   int x = p.variable(dx), y = p.variable(dy), z = p.variable(dz);
+ *   int t = p.variable(), u = p.variable();
+ *   p.add(NarrowingOperator.mul(t, x, y));
+ *   p.add(NarrowingOperator.exp(u, x));
+ *   p.add(NarrowingOperator.add(z, t, u));
+ * </pre>
+ * <p>
+ * The operators to revise are kept in an agenda, as in AC3. An
+ * operator is revised when it is added, and afterwards only when the
+ * domain of one of its variables has changed, so propagate() after
+ * setDomain() revises just what the change can affect. A change
+ * smaller than the precision (a fraction of the width) is kept but
+ * does not wake the other operators up; it saves the long tails of
+ * tiny steps that cycles in the network converge with.
+ * <p>
+ * The domains are kept in a DomainStore, so a search can push() a
+ * choice point, narrow a domain, propagate, and pop() back without
+ * copying them.
+ * <p>
+ * A Propagator is not thread-safe.
+ */
+public class Propagator {
+
+	public static final double DEFAULT_PRECISION = 1e-3;
+
+	private final DomainStore domains = new DomainStore();
+	private final List<NarrowingOperator> operators = new ArrayList<NarrowingOperator>();
+	private final List<int[]> watchers = new ArrayList<int[]>(); // operators of each variable
+	private final ArrayDeque<Integer> agenda = new ArrayDeque<Integer>();
+	private final BitSet queued = new BitSet();
+	private final ArrayDeque<int[]> savedAgendas = new ArrayDeque<int[]>();
+	private NarrowingReport report = new NarrowingReport(DEFAULT_PRECISION);
+	private long revisions;
+
+	/**
+	 * adds a variable with the given domain
+	 *
+	 * @return the index of the variable
+	 */
+	public int variable(RealInterval domain) {
+		watchers.add(new int[0]);
+		return domains.add(domain);
+	}
+
+	/**
+	 * adds an unbounded variable, typically an auxiliary one
+	 */
+	public int variable() {
+		return variable(new RealInterval());
+	}
+
+	public int size() {
+		return domains.size();
+	}
+
+	public RealInterval domain(int variable) {
+		return domains.get(variable);
+	}
+
+	/**
+	 * replaces the domain of a variable; the operators on it are
+	 * revised by the next propagate()
+	 */
+	public void setDomain(int variable, RealInterval domain) {
+		if (!domains.get(variable).equals(domain))
+			schedule(variable);
+		domains.set(variable, domain);
+	}
+
+	/**
+	 * marks a choice point of a search
+	 *
+	 * @return the depth before the push
+	 */
+	public int push() {
+		int[] pending = new int[agenda.size()];
+		int i = 0;
+		for (int k : agenda)
+			pending[i++] = k;
+		savedAgendas.push(pending);
+		return domains.push();
+	}
+
+	/**
+	 * undoes the changes of the domains since the last push(), and
+	 * the agenda is as it was then
+	 */
+	public void pop() {
+		domains.pop();
+		agenda.clear();
+		queued.clear();
+		for (int k : savedAgendas.pop())
+			enqueue(k);
+	}
+
+	/**
+	 * number of the choice points
+	 */
+	public int depth() {
+		return domains.depth();
+	}
+
+	public void add(NarrowingOperator operator) {
+		int k = operators.size();
+		for (int i = 0; i < operator.arity(); i++) {
+			int v = operator.variable(i);
+			if (v >= domains.size())
+				throw new IllegalArgumentException("add(variable=" + v + "): must have variable<" + domains.size());
+			int[] w = watchers.get(v);
+			if (w.length == 0 || w[w.length - 1] != k) { // once per variable
+				int[] ww = new int[w.length + 1];
+				System.arraycopy(w, 0, ww, 0, w.length);
+				ww[w.length] = k;
+				watchers.set(v, ww);
+			}
+		}
+		operators.add(operator);
+		enqueue(k);
+	}
+
+	/**
+	 * sets the fraction of its width a domain must lose to wake up
+	 * the operators on it, the minimum improvement of NarrowingReport
+	 */
+	public void setPrecision(double precision) {
+		if (!(precision >= 0 && precision < 1))
+			throw new IllegalArgumentException("setPrecision(" + precision + "): must have 0<=precision<1");
+		report = new NarrowingReport(precision);
+	}
+
+	/**
+	 * number of the operator revisions done so far
+	 */
+	public long revisions() {
+		return revisions;
+	}
+
+	/**
+	 * revises the operators in the agenda until it is empty
+	 *
+	 * @return NARROWED if some domain got narrower, EMPTY if the network
+	 *         has no solution in the domains (they are left as narrowed
+	 *         so far then, and the agenda is cleared)
+	 * @throws RuntimeException what an operator throws; the operator
+	 *         stays in the agenda and the domains are as narrowed so far
+	 */
+	public NarrowingStatus propagate() {
+		boolean narrowed = false;
+		while (!agenda.isEmpty()) {
+			int k = agenda.poll();
+			queued.clear(k);
+			NarrowingOperator op = operators.get(k);
+			int n = op.arity();
+			RealInterval[] args = new RealInterval[n];
+			for (int i = 0; i < n; i++)
+				args[i] = domains.get(op.variable(i));
+			revisions++;
+			report.start(args);
+			NarrowingStatus s;
+			try {
+				s = op.contract(args);
+			} catch (RuntimeException e) {
+				enqueue(k); // not revised: the next propagate() retries it
+				throw e;
+			}
+			report.finish(args);
+			if (s == NarrowingStatus.UNCHANGED)
+				continue;
+			if (s == NarrowingStatus.NARROWED)
+				for (int i = 0; i < n; i++) {
+					int v = op.variable(i);
+					// a variable may occur twice, e.g. in x*x
+					NarrowingStatus t = domains.narrow(v, args[i]);
+					if (t == NarrowingStatus.EMPTY) {
+						s = t;
+						break;
+					}
+					if (t == NarrowingStatus.NARROWED) {
+						narrowed = true;
+						if (report.isSignificant(i))
+							schedule(v);
+					}
+				}
+			if (s == NarrowingStatus.EMPTY) {
+				agenda.clear();
+				queued.clear();
+				return NarrowingStatus.EMPTY;
+			}
+		}
+		return narrowed ? NarrowingStatus.NARROWED : NarrowingStatus.UNCHANGED;
+	}
+
+	private void schedule(int variable) {
+		for (int k : watchers.get(variable))
+			enqueue(k);
+	}
+
+	private void enqueue(int k) {
+		if (!queued.get(k)) {
+			queued.set(k);
+			agenda.add(k);
+		}
+	}
+}
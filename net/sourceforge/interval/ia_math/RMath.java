@@ -49,21 +49,7 @@ public class RMath
   public static double nextfp(double x) {
 	  if (simpleRounding )
 		  return x;
-    double y;
-
-    if (x==0)
-      return Double.longBitsToDouble(1);
-    else if (x < Double.POSITIVE_INFINITY) {
-      long xx = Double.doubleToLongBits(x);
-      if (x > 0)
-         y = Double.longBitsToDouble(xx+1);
-      else if (x==0)   // this case should never happen
-	  y = Double.longBitsToDouble(1); 
-      else
-         y = Double.longBitsToDouble(xx-1);
-      return(y);
-    }else 
-     return (x);
+	  return up(x);
   }
 
   public static double prevfp(double x) {
@@ -72,6 +58,22 @@ public class RMath
     return(-nextfp(-x));
   }
 
+  /*
+   * one ulp step up without branches on the sign:
+   * the bits of a positive number are incremented, the bits of
+   * a negative one decremented (-0.0 is turned into +0.0 first).
+   * +inf and NaN are returned as is.
+   */
+  static double up(double x) {
+    long bits = Double.doubleToRawLongBits(x + 0.0);
+    double y = Double.longBitsToDouble(bits + ((bits >> 63) | 1));
+    return x < Double.POSITIVE_INFINITY ? y : x;
+  }
+
+  static double down(double x) {
+    return -up(-x);
+  }
+
   public static double add_lo(double x, double y) {
     return(prevfp(x+y));
   }
@@ -108,57 +110,297 @@ public class RMath
     return(nextfp(x/y));
   }
 
+  /*
+   * Bounds of [xl, xu] * [yl, yu] and, for 0 not in [yl, yu], of
+   * [xl, xu] / [yl, yu] without the sign case analysis of IAMath.mul()
+   * and div(): the least and the greatest of the four endpoint products
+   * (quotients), rounded outwards once. Rounding is monotone, so this is
+   * the same bound as the rounded extreme picked by the case analysis,
+   * but nothing depends on the signs and mixed-sign data costs the same
+   * as sign-stable data.
+   * A zero extreme or a NaN (0*inf, inf/inf) is left to the slow path,
+   * which rounds every product on its own: a zero factor or an infinite
+   * divisor gives an exact result, a +0.0 (-0.0) from an underflow is
+   * still a lower (upper) bound, and inf/inf, never the extreme, is
+   * skipped. A -0.0 bound is returned as 0.0.
+   */
+  public static double mul_lo(double xl, double xu, double yl, double yu) {
+    double l = Math.min(Math.min(xl * yl, xl * yu), Math.min(xu * yl, xu * yu));
+    if (l != 0.0 && l == l)
+      return prevfp(l);
+    return Math.min(Math.min(prod_lo(xl, yl), prod_lo(xl, yu)),
+                    Math.min(prod_lo(xu, yl), prod_lo(xu, yu))) + 0.0;
+  }
+
+  public static double mul_hi(double xl, double xu, double yl, double yu) {
+    double h = Math.max(Math.max(xl * yl, xl * yu), Math.max(xu * yl, xu * yu));
+    if (h != 0.0 && h == h)
+      return nextfp(h);
+    return Math.max(Math.max(prod_hi(xl, yl), prod_hi(xl, yu)),
+                    Math.max(prod_hi(xu, yl), prod_hi(xu, yu))) + 0.0;
+  }
+
+  public static double div_lo(double xl, double xu, double yl, double yu) {
+    double l = Math.min(Math.min(xl / yl, xl / yu), Math.min(xu / yl, xu / yu));
+    if (l != 0.0 && l == l)
+      return prevfp(l);
+    return Math.min(Math.min(quot_lo(xl, yl), quot_lo(xl, yu)),
+                    Math.min(quot_lo(xu, yl), quot_lo(xu, yu))) + 0.0;
+  }
+
+  public static double div_hi(double xl, double xu, double yl, double yu) {
+    double h = Math.max(Math.max(xl / yl, xl / yu), Math.max(xu / yl, xu / yu));
+    if (h != 0.0 && h == h)
+      return nextfp(h);
+    return Math.max(Math.max(quot_hi(xl, yl), quot_hi(xl, yu)),
+                    Math.max(quot_hi(xu, yl), quot_hi(xu, yu))) + 0.0;
+  }
+
+  private static final long PLUS_ZERO = 0L, MINUS_ZERO = 0x8000000000000000L;
+
+  private static double prod_lo(double x, double y) {
+    double p = x * y;
+    if (x == 0.0 || y == 0.0 || Double.doubleToRawLongBits(p) == PLUS_ZERO)
+      return 0.0;
+    return prevfp(p);
+  }
+
+  private static double prod_hi(double x, double y) {
+    double p = x * y;
+    if (x == 0.0 || y == 0.0 || Double.doubleToRawLongBits(p) == MINUS_ZERO)
+      return 0.0;
+    return nextfp(p);
+  }
+
+  private static double quot_lo(double x, double y) {
+    double q = x / y;
+    if (q != q)
+      return Double.POSITIVE_INFINITY;
+    if (x == 0.0 || Double.isInfinite(y) || Double.doubleToRawLongBits(q) == PLUS_ZERO)
+      return q + 0.0;
+    return prevfp(q);
+  }
+
+  private static double quot_hi(double x, double y) {
+    double q = x / y;
+    if (q != q)
+      return Double.NEGATIVE_INFINITY;
+    if (x == 0.0 || Double.isInfinite(y) || Double.doubleToRawLongBits(q) == MINUS_ZERO)
+      return q + 0.0;
+    return nextfp(q);
+  }
+
+  /*
+   * Error-free transformations. For s = x+y, p = x*y and q = x/y rounded
+   * to nearest they give the rounding error e, such that x + y = s + e
+   * and x * y = p + e exactly, and the remainder x - q*y, whose sign is
+   * the sign of the error of q times the sign of y.
+   * They are exact unless the operation overflowed (then they return an
+   * infinity or NaN) or, for mul_err and div_rem, the operands or the
+   * result are below 2^-969, where underflow may hide the error.
+   */
+  public static double add_err(double x, double y, double s) {
+    double b = s - x;
+    return (x - (s - b)) + (y - b);
+  }
+
+  public static double mul_err(double x, double y, double p) {
+    return Math.fma(x, y, -p);
+  }
+
+  public static double div_rem(double x, double y, double q) {
+    return Math.fma(-q, y, x);
+  }
+
+  /*
+   * Bulk versions of the operations above over whole arrays:
+   * res[i] = op(x[i], y[i]) for from <= i < to. 
+   * The rounding mode is checked once per call and the loop bodies
+   * contain no sign dependent branches, so the JIT can unroll and
+   * vectorize them. res may be the same array as x or y.
+   */
+  public static void nextfp(double[] x, double[] res, int from, int to) {
+    if (simpleRounding) {
+      System.arraycopy(x, from, res, from, to - from);
+      return;
+    }
+    for (int i = from; i < to; i++)
+      res[i] = up(x[i]);
+  }
+
+  public static void prevfp(double[] x, double[] res, int from, int to) {
+    if (simpleRounding) {
+      System.arraycopy(x, from, res, from, to - from);
+      return;
+    }
+    for (int i = from; i < to; i++)
+      res[i] = down(x[i]);
+  }
+
+  public static void add_lo(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++)
+        res[i] = x[i] + y[i];
+    else
+      for (int i = from; i < to; i++)
+        res[i] = down(x[i] + y[i]);
+  }
+
+  public static void add_hi(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++)
+        res[i] = x[i] + y[i];
+    else
+      for (int i = from; i < to; i++)
+        res[i] = up(x[i] + y[i]);
+  }
+
+  public static void sub_lo(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++)
+        res[i] = x[i] - y[i];
+    else
+      for (int i = from; i < to; i++)
+        res[i] = down(x[i] - y[i]);
+  }
+
+  public static void sub_hi(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++)
+        res[i] = x[i] - y[i];
+    else
+      for (int i = from; i < to; i++)
+        res[i] = up(x[i] - y[i]);
+  }
+
+  // as in mul_lo(double, double) a zero factor gives exact 0.0
+  public static void mul_lo(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++) {
+        double a = x[i], b = y[i];
+        res[i] = (a == 0.0 || b == 0.0) ? 0.0 : a * b;
+      }
+    else
+      for (int i = from; i < to; i++) {
+        double a = x[i], b = y[i];
+        res[i] = (a == 0.0 || b == 0.0) ? 0.0 : down(a * b);
+      }
+  }
+
+  public static void mul_hi(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++) {
+        double a = x[i], b = y[i];
+        res[i] = (a == 0.0 || b == 0.0) ? 0.0 : a * b;
+      }
+    else
+      for (int i = from; i < to; i++) {
+        double a = x[i], b = y[i];
+        res[i] = (a == 0.0 || b == 0.0) ? 0.0 : up(a * b);
+      }
+  }
+
+  public static void div_lo(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++) {
+        double a = x[i];
+        res[i] = a == 0.0 ? 0.0 : a / y[i];
+      }
+    else
+      for (int i = from; i < to; i++) {
+        double a = x[i];
+        res[i] = a == 0.0 ? 0.0 : down(a / y[i]);
+      }
+  }
+
+  public static void div_hi(double[] x, double[] y, double[] res, int from, int to) {
+    if (simpleRounding)
+      for (int i = from; i < to; i++) {
+        double a = x[i];
+        res[i] = a == 0.0 ? 0.0 : a / y[i];
+      }
+    else
+      for (int i = from; i < to; i++) {
+        double a = x[i];
+        res[i] = a == 0.0 ? 0.0 : up(a / y[i]);
+      }
+  }
+
+  /*
+   * exp, log, sin, cos and tan are bounded by RMathKernels, which gives
+   * guaranteed and (nearly always) the tightest bounds; with the simple
+   * rounding the value of java.lang.Math is used as is.
+   */
   public static double exp_lo(double x) {
-    if (x==Double.NEGATIVE_INFINITY)
-      return(0.0);
-    else if (x < Double.POSITIVE_INFINITY)
-      return(Math.max(0.0,prevfp(Math.exp(x))));
-    else return(x);
+    if (simpleRounding)
+      return Math.exp(x);
+    return RMathKernels.exp_lo(x);
   }
 
   public static double exp_hi(double x) {
-    if (x==Double.NEGATIVE_INFINITY)
-      return(0.0);
-    else if (x < Double.POSITIVE_INFINITY)
-      return(nextfp(Math.exp(x)));
-    else return(x);
+    if (simpleRounding)
+      return Math.exp(x);
+    return RMathKernels.exp_hi(x);
+  }
+
+  /**
+   * [exp_lo(lo), exp_hi(hi)] in one call, evaluating exp only once
+   * for a point interval
+   */
+  public static RealInterval exp_lohi(double lo, double hi) {
+    if (simpleRounding)
+      return new RealInterval(Math.exp(lo), lo == hi ? Math.exp(lo) : Math.exp(hi));
+    return RMathKernels.exp_lohi(lo, hi);
   }
 
   public static double log_lo(double x) {
-    if (x < 0.0)
-      return(Double.NaN);
-    else if (x < Double.POSITIVE_INFINITY)
-      return(prevfp(Math.log(x)));
-    else return(x);
+    if (simpleRounding)
+      return Math.log(x);
+    return RMathKernels.log_lo(x);
   }
   public static double log_hi(double x) {
-    if (x < 0.0)
-      return(Double.NaN);
-    else if (x < Double.POSITIVE_INFINITY)
-      return(nextfp(Math.log(x)));
-    else return(x);
+    if (simpleRounding)
+      return Math.log(x);
+    return RMathKernels.log_hi(x);
+  }
+  public static RealInterval log_lohi(double lo, double hi) {
+    if (simpleRounding)
+      return new RealInterval(Math.log(lo), lo == hi ? Math.log(lo) : Math.log(hi));
+    return RMathKernels.log_lohi(lo, hi);
   }
 
 
   public static double sin_lo(double x) {
-    return(prevfp(Math.sin(x)));
+    if (simpleRounding)
+      return Math.sin(x);
+    return RMathKernels.sin_lo(x);
   }
   public static double sin_hi(double x) {
-    return(nextfp(Math.sin(x)));
+    if (simpleRounding)
+      return Math.sin(x);
+    return RMathKernels.sin_hi(x);
   }
 
   public static double cos_lo(double x) {
-    return(prevfp(Math.cos(x)));
+    if (simpleRounding)
+      return Math.cos(x);
+    return RMathKernels.cos_lo(x);
   }
   public static double cos_hi(double x) {
-    return(nextfp(Math.cos(x)));
+    if (simpleRounding)
+      return Math.cos(x);
+    return RMathKernels.cos_hi(x);
   }
 
   public static double tan_lo(double x) {
-    return(prevfp(Math.tan(x)));
+    if (simpleRounding)
+      return Math.tan(x);
+    return RMathKernels.tan_lo(x);
   }
   public static double tan_hi(double x) {
-    return(nextfp(Math.tan(x)));
+    if (simpleRounding)
+      return Math.tan(x);
+    return RMathKernels.tan_hi(x);
   }
 
   public static double asin_lo(double x) {
@@ -167,6 +409,11 @@ public class RMath
   public static double asin_hi(double x) {
     return(nextfp(Math.asin(x)));
   }
+  public static RealInterval asin_lohi(double lo, double hi) {
+    double l = Math.asin(lo);
+    double h = lo == hi ? l : Math.asin(hi);
+    return new RealInterval(prevfp(l), nextfp(h));
+  }
 
   public static double acos_lo(double x) {
     return(prevfp(Math.acos(x)));
@@ -181,6 +428,11 @@ public class RMath
   public static double atan_hi(double x) {
     return(nextfp(Math.atan(x)));
   }
+  public static RealInterval atan_lohi(double lo, double hi) {
+    double l = Math.atan(lo);
+    double h = lo == hi ? l : Math.atan(hi);
+    return new RealInterval(prevfp(l), nextfp(h));
+  }
 
 
 
@@ -189,38 +441,30 @@ public class RMath
 
 
 
+  /*
+   * sin(2 pi x) into sin and cos(2 pi x) into cos, both from one
+   * argument reduction; any x
+   */
+   static void sincos2pi(double x, RealInterval sin, RealInterval cos) {
+    if (simpleRounding) {
+      double t = Math.PI*2*(x - Math.rint(x));
+      sin.lo = sin.hi = Math.sin(t);
+      cos.lo = cos.hi = Math.cos(t);
+    } else
+      RMathKernels.sincos2pi(x, sin, cos);
+  }
+
   /*
     These are meant only to be called with
           -1/4 <= x < 1/4.
     They are only to be used in the 
     ia_math package.
    */
-   static double sin2pi_lo(double x) {
-    return(prevfp(Math.sin(prevfp(Math.PI*2*x))));
-  }
-   static double sin2pi_hi(double x) {
-    return(nextfp(Math.sin(nextfp(Math.PI*2*x))));
-  }
-
-   static double cos2pi_lo(double x) {
-    if (x > 0) 
-      return(prevfp(Math.cos(nextfp(Math.PI*2*x))));
-    else
-      return(prevfp(Math.cos(prevfp(Math.PI*2*x))));
-
-  }
-   static double cos2pi_hi(double x) {
-    if (x > 0) 
-      return(nextfp(Math.cos(prevfp(Math.PI*2*x))));
-    else
-      return(nextfp(Math.cos(nextfp(Math.PI*2*x))));
-  }
-
    static double tan2pi_lo(double x) {
-    return(prevfp(Math.tan(prevfp(Math.PI*2*x))));
+    return(tan_lo(prevfp(Math.PI*2*x)));
   }
    static double tan2pi_hi(double x) {
-    return(nextfp(Math.tan(nextfp(Math.PI*2*x))));
+    return(tan_hi(nextfp(Math.PI*2*x)));
   }
 
   /*
@@ -255,6 +499,62 @@ public class RMath
 
 
 
+  /**
+   * returns lower bound on x**n for x>=0 and an integer n>=0,
+   * computed by binary exponentiation with every product rounded down
+   */
+  public static double ipow_lo(double x, int n) {
+    double r = 1.0;
+    if (simpleRounding) {
+      for (; n != 0; n >>>= 1, x *= x)
+        if ((n & 1) != 0) r *= x;
+      return r;
+    }
+    while (n != 0) {
+      if ((n & 1) != 0) r = mul_down(r, x);
+      if ((n >>>= 1) != 0) x = mul_down(x, x);
+    }
+    return r;
+  }
+
+  /**
+   * returns upper bound on x**n for x>=0 and an integer n>=0
+   */
+  public static double ipow_hi(double x, int n) {
+    double r = 1.0;
+    if (simpleRounding) {
+      for (; n != 0; n >>>= 1, x *= x)
+        if ((n & 1) != 0) r *= x;
+      return r;
+    }
+    if (x == 0.0)
+      return n == 0 ? 1.0 : 0.0;
+    while (n != 0) {
+      if ((n & 1) != 0) r = mul_up(r, x);
+      if ((n >>>= 1) != 0) x = mul_up(x, x);
+    }
+    return r;
+  }
+
+  /*
+   * Product of x, y >= 0 rounded down (up): moved by an ulp only if
+   * the fma error shows that the exact product lies below (above) it,
+   * as RoundingPolicy.TIGHT does, so the powers of small integers stay
+   * exact. Below 2^-969 the error is not reliable and the product is
+   * always moved.
+   */
+  private static final double TINY = 0x1p-969;
+
+  private static double mul_down(double x, double y) {
+    double p = x * y;
+    return p >= TINY && mul_err(x, y, p) >= 0 ? p : Math.max(down(p), 0.0);
+  }
+
+  private static double mul_up(double x, double y) {
+    double p = x * y;
+    return p >= TINY && mul_err(x, y, p) <= 0 ? p : up(p);
+  }
+
   /**
    * returns lower bound on x**y assuming x>0
    */
@@ -0,0 +1,1055 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * RMathKernels computes guaranteed lower and upper bounds of exp, log,
+ * sin, cos and tan. RMath uses them instead of java.lang.Math, which
+ * promises only about 1 ulp and so needs a blind step outwards.
+ * <p>
+ * Every function computes its value once, as an unevaluated sum of two
+ * doubles (double-double) hi + lo, together with a bound on the error of
+ * that sum, and then picks the nearest doubles below and above
+ * hi + lo -/+ error. The bounds are therefore always valid and nearly
+ * always the tightest possible: they are one ulp apart (or equal for the
+ * exact cases exp(0), log(1), sin(0), cos(0), tan(0)) unless the exact
+ * value is closer than the error bound to a double.
+ * <p>
+ * Methods (and error bounds relative to the result):
+ * <ul>
+ * <li>exp -- x = (64 m + j) ln2/64 + r, |r| <= ln2/128, with ln2/64 in
+ *     three parts; exp(r) by a degree 8 polynomial, 2^(j/64) from a
+ *     table of double-doubles. Error below 2^-66, 2^-62 is used.</li>
+ * <li>log -- x = 2^e m, m in [sqrt(1/2), sqrt(2)), m = F (1 + t) with
+ *     F = i/128 and |t| < 2^-7.5; log(1+t) by a degree 9 polynomial,
+ *     log(F) from a table. Error below 2^-65, 2^-62 is used.</li>
+ * <li>sin, cos, tan -- Cody-Waite reduction x = k pi/2 + r with pi/2 in
+ *     three parts (33 + 33 + 53 bits), exact for |x| < 2^20 up to
+ *     |k| 2^-118, Payne-Hanek reduction with 1344 bits of 2/pi for
+ *     larger |x| (absolute error below 2^-126); r = j/128 + d,
+ *     |d| <= 1/256, sin and cos of j/128 from a table, of d by
+ *     polynomials of degree 9 and 8. Error below 2^-64 plus the
+ *     reduction error, 2^-62 is used (2^-61 for tan).</li>
+ * <li>sin(2 pi z) and cos(2 pi z) together -- z = k/4 + w is exact for
+ *     every z, so there is no argument limit; 2 pi w as a double-double,
+ *     then as sin and cos above.</li>
+ * </ul>
+ * Where both bounds of one value are needed (a point interval, sin and
+ * cos of the same argument), the value is computed only once.
+ * sin, cos and tan of an interval are bounded by the values at its ends
+ * and by the multiples of pi/2 inside, found from k mod 8 of the ends,
+ * so a thin interval gets a thin enclosure at any magnitude.
+ * All truncation errors of the polynomials are below 2^-70; the
+ * tables were computed with 80 decimal digits and rounded to nearest.
+ */
+public final class RMathKernels {
+
+	private RMathKernels() {
+	}
+
+	private static final double EXP_ERR = 0x1p-62;
+	private static final double LOG_ERR = 0x1p-62;
+	private static final double TRIG_ERR = 0x1p-62;
+	private static final double TAN_ERR = 0x1p-61;
+
+	public static double exp_lo(double x) {
+		return exp(x, false, null);
+	}
+
+	public static double exp_hi(double x) {
+		return exp(x, true, null);
+	}
+
+	/**
+	 * [exp_lo(lo), exp_hi(hi)]; exp is evaluated only once if lo == hi
+	 */
+	public static RealInterval exp_lohi(double lo, double hi) {
+		if (lo != hi)
+			return new RealInterval(exp(lo, false, null), exp(hi, true, null));
+		RealInterval y = new RealInterval();
+		exp(lo, false, y);
+		return y;
+	}
+
+	public static double log_lo(double x) {
+		return log(x, false, null);
+	}
+
+	public static double log_hi(double x) {
+		return log(x, true, null);
+	}
+
+	/**
+	 * [log_lo(lo), log_hi(hi)]; log is evaluated only once if lo == hi
+	 */
+	public static RealInterval log_lohi(double lo, double hi) {
+		if (lo != hi)
+			return new RealInterval(log(lo, false, null), log(hi, true, null));
+		RealInterval y = new RealInterval();
+		log(lo, false, y);
+		return y;
+	}
+
+	public static double sin_lo(double x) {
+		return sin(x, false);
+	}
+
+	public static double sin_hi(double x) {
+		return sin(x, true);
+	}
+
+	public static double cos_lo(double x) {
+		return cos(x, false);
+	}
+
+	public static double cos_hi(double x) {
+		return cos(x, true);
+	}
+
+	public static double tan_lo(double x) {
+		return tan(x, false);
+	}
+
+	public static double tan_hi(double x) {
+		return tan(x, true);
+	}
+
+	/*
+	 * The largest double <= hi + lo - err (upper == false) or the smallest
+	 * double >= hi + lo + err (upper == true), where hi + lo is a
+	 * normalized double-double (|lo| <= ulp(hi)) and err >= 0.
+	 */
+	static double round(double hi, double lo, double err, boolean upper) {
+		if (upper)
+			return -lower(-hi, -lo, err);
+		return lower(hi, lo, err);
+	}
+
+	/*
+	 * The bound asked for. When both is not null, the functions below
+	 * store there both bounds of the one value they have computed.
+	 */
+	private static double pick(double lo, double hi, boolean upper, RealInterval both) {
+		if (both != null) {
+			both.lo = lo;
+			both.hi = hi;
+		}
+		return upper ? hi : lo;
+	}
+
+	private static double round(double hi, double lo, double err, boolean upper, RealInterval both) {
+		if (both == null)
+			return round(hi, lo, err, upper);
+		return pick(round(hi, lo, err, false), round(hi, lo, err, true), upper, both);
+	}
+
+	private static double lower(double hi, double lo, double err) {
+		double d = RMath.down(hi);
+		// hi - d is exact; this fails only for a large err, or when
+		// hi is a power of two and lo is close to -ulp(hi)/2
+		if (!((hi - d) * 0.5 >= err - lo))
+			return lowerSlow(hi, lo, err);
+		// hi if lo > err, d otherwise, without a branch which would
+		// be mispredicted half of the time
+		long mask = Double.doubleToRawLongBits(err - lo) >> 63;
+		long h = Double.doubleToRawLongBits(hi), l = Double.doubleToRawLongBits(d);
+		return Double.longBitsToDouble(l ^ ((h ^ l) & mask));
+	}
+
+	private static double lowerSlow(double hi, double lo, double err) {
+		if (lo >= err)
+			return hi;
+		double t = RMath.up(err - lo); // hi - t <= hi + lo - err
+		double d = hi - t;
+		// hi - d is exact when t is small, so this checks d <= hi - t
+		if (!(t <= Math.abs(hi) * 0.25) || d - hi > -t)
+			d = RMath.down(d);
+		return d;
+	}
+
+	/* ---------------------------------------------------------------- exp */
+
+	private static final double INV_LN2_64 = 0x1.71547652b82fep+6;
+	// ln2/64 = LN2_64_1 + LN2_64_2 + LN2_64_3, LN2_64_1 has 36 bits
+	private static final double LN2_64_1 = 0x1.62e42fefa0000p-7;
+	private static final double LN2_64_2 = 0x1.cf79abc9e3b3ap-46;
+	private static final double LN2_64_3 = -0x1.ff0342542fc33p-100;
+	// 1/3!, ..., 1/8!
+	private static final double E3 = 1.0 / 6, E4 = 1.0 / 24, E5 = 1.0 / 120,
+			E6 = 1.0 / 720, E7 = 1.0 / 5040, E8 = 1.0 / 40320;
+	// exp(x) > MAX_VALUE above, exp(x) < MIN_VALUE / 4 below
+	private static final double EXP_OVERFLOW = 709.79;
+	private static final double EXP_UNDERFLOW = -746;
+
+	// 2^(j/64) as double-doubles, j = 0..63
+	private static final double[] EXP2_TABLE = {
+		0x1p+0, 0.0,
+		0x1.02c9a3e778061p+0, -0x1.19083535b085dp-56,
+		0x1.059b0d3158574p+0, 0x1.d73e2a475b465p-55,
+		0x1.0874518759bc8p+0, 0x1.186be4bb284ffp-57,
+		0x1.0b5586cf9890fp+0, 0x1.8a62e4adc610bp-54,
+		0x1.0e3ec32d3d1a2p+0, 0x1.03a1727c57b53p-59,
+		0x1.11301d0125b51p+0, -0x1.6c51039449b3ap-54,
+		0x1.1429aaea92de0p+0, -0x1.32fbf9af1369ep-54,
+		0x1.172b83c7d517bp+0, -0x1.19041b9d78a76p-55,
+		0x1.1a35beb6fcb75p+0, 0x1.e5b4c7b4968e4p-55,
+		0x1.1d4873168b9aap+0, 0x1.e016e00a2643cp-54,
+		0x1.2063b88628cd6p+0, 0x1.dc775814a8495p-55,
+		0x1.2387a6e756238p+0, 0x1.9b07eb6c70573p-54,
+		0x1.26b4565e27cddp+0, 0x1.2bd339940e9d9p-55,
+		0x1.29e9df51fdee1p+0, 0x1.612e8afad1255p-55,
+		0x1.2d285a6e4030bp+0, 0x1.0024754db41d5p-54,
+		0x1.306fe0a31b715p+0, 0x1.6f46ad23182e4p-55,
+		0x1.33c08b26416ffp+0, 0x1.32721843659a6p-54,
+		0x1.371a7373aa9cbp+0, -0x1.63aeabf42eae2p-54,
+		0x1.3a7db34e59ff7p+0, -0x1.5e436d661f5e3p-56,
+		0x1.3dea64c123422p+0, 0x1.ada0911f09ebcp-55,
+		0x1.4160a21f72e2ap+0, -0x1.ef3691c309278p-58,
+		0x1.44e086061892dp+0, 0x1.89b7a04ef80d0p-59,
+		0x1.486a2b5c13cd0p+0, 0x1.3c1a3b69062f0p-56,
+		0x1.4bfdad5362a27p+0, 0x1.d4397afec42e2p-56,
+		0x1.4f9b2769d2ca7p+0, -0x1.4b309d25957e3p-54,
+		0x1.5342b569d4f82p+0, -0x1.07abe1db13cadp-55,
+		0x1.56f4736b527dap+0, 0x1.9bb2c011d93adp-54,
+		0x1.5ab07dd485429p+0, 0x1.6324c054647adp-54,
+		0x1.5e76f15ad2148p+0, 0x1.ba6f93080e65ep-54,
+		0x1.6247eb03a5585p+0, -0x1.383c17e40b497p-54,
+		0x1.6623882552225p+0, -0x1.bb60987591c34p-54,
+		0x1.6a09e667f3bcdp+0, -0x1.bdd3413b26456p-54,
+		0x1.6dfb23c651a2fp+0, -0x1.bbe3a683c88abp-57,
+		0x1.71f75e8ec5f74p+0, -0x1.16e4786887a99p-55,
+		0x1.75feb564267c9p+0, -0x1.0245957316dd3p-54,
+		0x1.7a11473eb0187p+0, -0x1.41577ee04992fp-55,
+		0x1.7e2f336cf4e62p+0, 0x1.05d02ba15797ep-56,
+		0x1.82589994cce13p+0, -0x1.d4c1dd41532d8p-54,
+		0x1.868d99b4492edp+0, -0x1.fc6f89bd4f6bap-54,
+		0x1.8ace5422aa0dbp+0, 0x1.6e9f156864b27p-54,
+		0x1.8f1ae99157736p+0, 0x1.5cc13a2e3976cp-55,
+		0x1.93737b0cdc5e5p+0, -0x1.75fc781b57ebcp-57,
+		0x1.97d829fde4e50p+0, -0x1.d185b7c1b85d1p-54,
+		0x1.9c49182a3f090p+0, 0x1.c7c46b071f2bep-56,
+		0x1.a0c667b5de565p+0, -0x1.359495d1cd533p-54,
+		0x1.a5503b23e255dp+0, -0x1.d2f6edb8d41e1p-54,
+		0x1.a9e6b5579fdbfp+0, 0x1.0fac90ef7fd31p-54,
+		0x1.ae89f995ad3adp+0, 0x1.7a1cd345dcc81p-54,
+		0x1.b33a2b84f15fbp+0, -0x1.2805e3084d708p-57,
+		0x1.b7f76f2fb5e47p+0, -0x1.5584f7e54ac3bp-56,
+		0x1.bcc1e904bc1d2p+0, 0x1.23dd07a2d9e84p-55,
+		0x1.c199bdd85529cp+0, 0x1.11065895048ddp-55,
+		0x1.c67f12e57d14bp+0, 0x1.2884dff483cadp-54,
+		0x1.cb720dcef9069p+0, 0x1.503cbd1e949dbp-56,
+		0x1.d072d4a07897cp+0, -0x1.cbc3743797a9cp-54,
+		0x1.d5818dcfba487p+0, 0x1.2ed02d75b3707p-55,
+		0x1.da9e603db3285p+0, 0x1.c2300696db532p-54,
+		0x1.dfc97337b9b5fp+0, -0x1.1a5cd4f184b5cp-54,
+		0x1.e502ee78b3ff6p+0, 0x1.39e8980a9cc8fp-55,
+		0x1.ea4afa2a490dap+0, -0x1.e9c23179c2893p-54,
+		0x1.efa1bee615a27p+0, 0x1.dc7f486a4b6b0p-54,
+		0x1.f50765b6e4540p+0, 0x1.9d3e12dd8a18bp-54,
+		0x1.fa7c1819e90d8p+0, 0x1.74853f3a5931ep-55
+	};
+
+	private static double exp(double x, boolean upper, RealInterval both) {
+		if (x != x)
+			return pick(x, x, upper, both);
+		if (x == Double.POSITIVE_INFINITY)
+			return pick(x, x, upper, both);
+		if (x == Double.NEGATIVE_INFINITY)
+			return pick(0.0, 0.0, upper, both);
+		if (x > EXP_OVERFLOW)
+			return pick(Double.MAX_VALUE, Double.POSITIVE_INFINITY, upper, both);
+		if (x < EXP_UNDERFLOW)
+			return pick(0.0, Double.MIN_VALUE, upper, both);
+		if (Math.abs(x) < 0x1p-54) {
+			// 1 + x rounds to 1, the exact value is on the side of x
+			if (x == 0)
+				return pick(1.0, 1.0, upper, both);
+			if (x > 0)
+				return pick(1.0, RMath.up(1.0), upper, both);
+			return pick(RMath.down(1.0), 1.0, upper, both);
+		}
+
+		// x = k ln2/64 + r
+		double k = Math.rint(x * INV_LN2_64);
+		double r1 = x - k * LN2_64_1; // exact
+		double p = k * LN2_64_2;
+		double pe = Math.fma(k, LN2_64_2, -p);
+		double rh = r1 - p;
+		double rl = twoSumErr(r1, -p, rh) - (pe + k * LN2_64_3);
+
+		// exp(r) - 1 = r + r^2/2 + r^3 (1/3! + ... + r^5/8!)
+		double hh = rh * rh;
+		double hl = Math.fma(rh, rh, -hh) + 2 * rh * rl;
+		double e3 = rh * hh * ((E3 + rh * E4) + hh * ((E5 + rh * E6) + hh * (E7 + rh * E8)));
+		double mh = rh + 0.5 * hh;
+		double ml = (rh - mh) + 0.5 * hh + rl + 0.5 * hl + e3; // |rh| > hh
+
+		// 2^(j/64) exp(r)
+		int ki = (int) k;
+		int j = ki & 63;
+		int m = ki >> 6;
+		double th = EXP2_TABLE[2 * j], tl = EXP2_TABLE[2 * j + 1];
+		double q = th * mh;
+		double qe = Math.fma(th, mh, -q) + th * ml + tl * mh;
+		double zh = th + q;
+		double zl = (th - zh) + q + tl + qe; // |th| > |q|
+		double s = zh + zl;
+		zl = zl - (s - zh);
+		zh = s;
+
+		double err = zh * EXP_ERR;
+		if (both != null)
+			return pick(scale(round(zh, zl, err, false), m, false), scale(round(zh, zl, err, true), m, true), upper, both);
+		return scale(round(zh, zl, err, upper), m, upper);
+	}
+
+	// b * 2^m rounded in the given direction, for 0.5 < b < 4
+	private static double scale(double b, int m, boolean upper) {
+		if (m > -1022 && m < 1022) // exact
+			return b * Double.longBitsToDouble((long) (m + 1023) << 52);
+		double y = Math.scalb(b, m);
+		if (y == Double.POSITIVE_INFINITY)
+			return upper ? y : Double.MAX_VALUE;
+		if (y < Double.MIN_NORMAL && Math.scalb(y, -m) != b) {
+			// rounded to a subnormal
+			if (upper)
+				return Math.scalb(y, -m) < b ? RMath.up(y) : y;
+			return Math.scalb(y, -m) > b ? Math.max(0.0, RMath.down(y)) : y;
+		}
+		return y;
+	}
+
+	/* ---------------------------------------------------------------- log */
+
+	// ln2 = LN2_1 + LN2_2, LN2_1 has 42 bits
+	private static final double LN2_1 = 0x1.62e42fefa3800p-1;
+	private static final double LN2_2 = 0x1.ef35793c76730p-45;
+	private static final double SQRT2 = 1.4142135623730951;
+	// log(1+t) = t - t^2/2 + t^3 (1/3 - t/4 + ... + t^6/9)
+	private static final double L3 = 1.0 / 3, L4 = -1.0 / 4, L5 = 1.0 / 5,
+			L6 = -1.0 / 6, L7 = 1.0 / 7, L8 = -1.0 / 8, L9 = 1.0 / 9;
+
+	// log(i/128) as double-doubles, i = 90..182
+	private static final int LOG_TABLE_FIRST = 90;
+	private static final double[] LOG_TABLE = {
+		-0x1.68ac83e9c6a14p-2, -0x1.a64eadd740178p-58, // 90/128
+		-0x1.5d5bddf595f30p-2, 0x1.6541148cbb8a2p-56, // 91/128
+		-0x1.522ae0738a3d8p-2, 0x1.8f7e9b38a6979p-57, // 92/128
+		-0x1.4718dc271c41bp-2, -0x1.8fb4c14c56eefp-60, // 93/128
+		-0x1.3c25277333184p-2, 0x1.2ad27e50a8ec6p-56, // 94/128
+		-0x1.314f1e1d35ce4p-2, 0x1.3d69909e5c3dcp-56, // 95/128
+		-0x1.269621134db92p-2, -0x1.e0efadd9db02bp-56, // 96/128
+		-0x1.1bf99635a6b95p-2, 0x1.12aeb84249223p-57, // 97/128
+		-0x1.1178e8227e47cp-2, 0x1.0e63a5f01c691p-57, // 98/128
+		-0x1.07138604d5862p-2, -0x1.cdb16ed4e9138p-56, // 99/128
+		-0x1.f991c6cb3b379p-3, -0x1.f665066f980a2p-57, // 100/128
+		-0x1.e530effe71012p-3, -0x1.2276041f43042p-59, // 101/128
+		-0x1.d1037f2655e7bp-3, -0x1.60629242471a2p-57, // 102/128
+		-0x1.bd087383bd8adp-3, -0x1.dd355f6a516d7p-60, // 103/128
+		-0x1.a93ed3c8ad9e3p-3, -0x1.bcafa9de97203p-57, // 104/128
+		-0x1.95a5adcf7017fp-3, -0x1.142c507fb7a3dp-58, // 105/128
+		-0x1.823c16551a3c2p-3, 0x1.1232ce70be781p-57, // 106/128
+		-0x1.6f0128b756abcp-3, 0x1.8de59c21e166cp-57, // 107/128
+		-0x1.5bf406b543db2p-3, 0x1.1f5b44c0df7e7p-61, // 108/128
+		-0x1.4913d8333b561p-3, 0x1.0d5604930f135p-58, // 109/128
+		-0x1.365fcb0159016p-3, -0x1.7d411a5b944adp-58, // 110/128
+		-0x1.23d712a49c202p-3, 0x1.6e38161051d69p-57, // 111/128
+		-0x1.1178e8227e47cp-3, 0x1.0e63a5f01c691p-58, // 112/128
+		-0x1.fe89139dbd566p-4, 0x1.ac9f4215f9393p-58, // 113/128
+		-0x1.da727638446a2p-4, -0x1.401fa71733019p-58, // 114/128
+		-0x1.b6ac88dad5b1cp-4, 0x1.0057eed1ca59fp-59, // 115/128
+		-0x1.9335e5d594989p-4, 0x1.478a85704ccb7p-58, // 116/128
+		-0x1.700d30aeac0e1p-4, 0x1.72566212cdd05p-61, // 117/128
+		-0x1.4d3115d207eacp-4, -0x1.769f42c7842ccp-58, // 118/128
+		-0x1.2aa04a44717a5p-4, 0x1.d15d38d2fa3f7p-58, // 119/128
+		-0x1.08598b59e3a07p-4, 0x1.dd7009902bf32p-58, // 120/128
+		-0x1.ccb73cdddb2ccp-5, 0x1.e48fb0500efd4p-59, // 121/128
+		-0x1.894aa149fb343p-5, -0x1.a8be97660a23dp-60, // 122/128
+		-0x1.466aed42de3eap-5, 0x1.cdd6f7f4a137ep-59, // 123/128
+		-0x1.0415d89e74444p-5, -0x1.c05cf1d753622p-59, // 124/128
+		-0x1.8492528c8cabfp-6, 0x1.d192d0619fa67p-60, // 125/128
+		-0x1.0205658935847p-6, -0x1.27c8e8416e71fp-60, // 126/128
+		-0x1.010157588de71p-7, -0x1.46662d417ced0p-62, // 127/128
+		0.0, 0.0, // 128/128
+		0x1.fe02a6b106789p-8, -0x1.e44b7e3711ebfp-67, // 129/128
+		0x1.fc0a8b0fc03e4p-7, -0x1.83092c59642a1p-62, // 130/128
+		0x1.7b91b07d5b11bp-6, -0x1.5b602ace3a510p-60, // 131/128
+		0x1.f829b0e783300p-6, 0x1.33e3f04f1ef23p-60, // 132/128
+		0x1.39e87b9febd60p-5, -0x1.5bfa937f551bbp-59, // 133/128
+		0x1.77458f632dcfcp-5, 0x1.18d3ca87b9296p-59, // 134/128
+		0x1.b42dd711971bfp-5, -0x1.eb9759c130499p-60, // 135/128
+		0x1.f0a30c01162a6p-5, 0x1.85f325c5bbacdp-59, // 136/128
+		0x1.16536eea37ae1p-4, -0x1.79da3e8c22cdap-60, // 137/128
+		0x1.341d7961bd1d1p-4, -0x1.b599f227becbbp-58, // 138/128
+		0x1.51b073f06183fp-4, 0x1.a49e39a1a8be4p-58, // 139/128
+		0x1.6f0d28ae56b4cp-4, -0x1.906d99184b992p-58, // 140/128
+		0x1.8c345d6319b21p-4, -0x1.4a697ab3424a9p-61, // 141/128
+		0x1.a926d3a4ad563p-4, 0x1.942f48aa70ea9p-58, // 142/128
+		0x1.c5e548f5bc743p-4, 0x1.5d617ef8161b1p-60, // 143/128
+		0x1.e27076e2af2e6p-4, -0x1.61578001e0162p-60, // 144/128
+		0x1.fec9131dbeabbp-4, -0x1.5746b9981b36cp-58, // 145/128
+		0x1.0d77e7cd08e59p-3, 0x1.9a5dc5e9030acp-57, // 146/128
+		0x1.1b72ad52f67a0p-3, 0x1.483023472cd74p-58, // 147/128
+		0x1.29552f81ff523p-3, 0x1.301771c407dbfp-57, // 148/128
+		0x1.371fc201e8f74p-3, 0x1.de6cb62af18a0p-58, // 149/128
+		0x1.44d2b6ccb7d1ep-3, 0x1.9f4f6543e1f88p-57, // 150/128
+		0x1.526e5e3a1b438p-3, -0x1.746ff8a470d3ap-57, // 151/128
+		0x1.5ff3070a793d4p-3, -0x1.bc60efafc6f6ep-58, // 152/128
+		0x1.6d60fe719d21dp-3, -0x1.caae268ecd179p-57, // 153/128
+		0x1.7ab890210d909p-3, 0x1.be36b2d6a0608p-59, // 154/128
+		0x1.87fa06520c911p-3, -0x1.bf7fdbfa08d9ap-57, // 155/128
+		0x1.9525a9cf456b4p-3, 0x1.d904c1d4e2e26p-57, // 156/128
+		0x1.a23bc1fe2b563p-3, 0x1.93711b07a998cp-59, // 157/128
+		0x1.af3c94e80bff3p-3, -0x1.398cff3641985p-58, // 158/128
+		0x1.bc286742d8cd6p-3, 0x1.4fce744870f55p-58, // 159/128
+		0x1.c8ff7c79a9a22p-3, -0x1.4f689f8434012p-57, // 160/128
+		0x1.d5c216b4fbb91p-3, 0x1.6e443597e4d40p-57, // 161/128
+		0x1.e27076e2af2e6p-3, -0x1.61578001e0162p-59, // 162/128
+		0x1.ef0adcbdc5936p-3, 0x1.48637950dc20dp-57, // 163/128
+		0x1.fb9186d5e3e2bp-3, -0x1.caaae64f21acbp-57, // 164/128
+		0x1.0402594b4d041p-2, -0x1.28ec217a5022dp-57, // 165/128
+		0x1.0a324e27390e3p-2, 0x1.7dcfde8061c03p-56, // 166/128
+		0x1.1058bf9ae4ad5p-2, 0x1.89fa0ab4cb31dp-58, // 167/128
+		0x1.1675cababa60ep-2, 0x1.ce63eab883717p-61, // 168/128
+		0x1.1c898c16999fbp-2, -0x1.0e5c62aff1c44p-60, // 169/128
+		0x1.22941fbcf7966p-2, -0x1.76f5eb09628afp-56, // 170/128
+		0x1.2895a13de86a3p-2, 0x1.7ad24c13f040ep-56, // 171/128
+		0x1.2e8e2bae11d31p-2, -0x1.8f4cdb95ebdf9p-56, // 172/128
+		0x1.347dd9a987d55p-2, -0x1.4dd4c580919f8p-57, // 173/128
+		0x1.3a64c556945eap-2, -0x1.c68651945f97cp-57, // 174/128
+		0x1.404308686a7e4p-2, -0x1.0bcfb6082ce6dp-56, // 175/128
+		0x1.4618bc21c5ec2p-2, 0x1.f42decdeccf1dp-56, // 176/128
+		0x1.4be5f957778a1p-2, -0x1.259b35b04813dp-57, // 177/128
+		0x1.51aad872df82dp-2, 0x1.3927ac19f55e3p-59, // 178/128
+		0x1.5767717455a6cp-2, 0x1.526adb283660cp-56, // 179/128
+		0x1.5d1bdbf5809cap-2, 0x1.4236383dc7fe1p-56, // 180/128
+		0x1.62c82f2b9c795p-2, 0x1.7b7af915300e5p-57, // 181/128
+		0x1.686c81e9b14afp-2, -0x1.ddea0f7f58e3dp-57 // 182/128
+	};
+
+	private static double log(double x, boolean upper, RealInterval both) {
+		if (!(x >= 0))
+			return pick(Double.NaN, Double.NaN, upper, both);
+		if (x == 0)
+			return pick(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, upper, both);
+		if (x == Double.POSITIVE_INFINITY)
+			return pick(x, x, upper, both);
+		if (x == 1)
+			return pick(0.0, 0.0, upper, both);
+
+		int e = 0;
+		if (x < Double.MIN_NORMAL) {
+			x *= 0x1p54;
+			e = -54;
+		}
+		long bits = Double.doubleToRawLongBits(x);
+		e += (int) (bits >>> 52) - 1023;
+		double m = Double.longBitsToDouble((bits & 0x000fffffffffffffL) | 0x3ff0000000000000L);
+		if (m > SQRT2) {
+			m *= 0.5;
+			e++;
+		}
+
+		// m = F (1 + t)
+		int i = (int) (m * 128 + 0.5);
+		double f = i * (1.0 / 128);
+		double u = m - f; // exact
+		double th = u / f;
+		double tl = Math.fma(-th, f, u) / f;
+
+		double t2h = th * th;
+		double t2l = Math.fma(th, th, -t2h) + 2 * th * tl;
+		double t3 = th * t2h * (L3 + th * (L4 + th * (L5 + th * (L6 + th * (L7 + th * (L8 + th * L9))))));
+		double ph = th - 0.5 * t2h;
+		double pl = (th - ph) - 0.5 * t2h + tl - 0.5 * t2l + t3;
+
+		// e ln2 + log(F) + log(1+t), the terms are in decreasing order
+		// (or zero), so the fast two-sum is exact
+		int n = 2 * (i - LOG_TABLE_FIRST);
+		double a = e * LN2_1; // exact
+		double ah = a + LOG_TABLE[n];
+		double al = (a - ah) + LOG_TABLE[n] + e * LN2_2 + LOG_TABLE[n + 1];
+		double yh = ah + ph;
+		double yl = (ah - yh) + ph + al + pl;
+		double s = yh + yl;
+		yl = yl - (s - yh);
+		yh = s;
+
+		return round(yh, yl, Math.abs(yh) * LOG_ERR, upper, both);
+	}
+
+	/* ------------------------------------------------------ sin, cos, tan */
+
+	private static final double TWO_OVER_PI = 0x1.45f306dc9c883p-1;
+	// pi/2 = PIO2_1 + PIO2_2 + PIO2_3 with 33, 33 and 53 bits
+	private static final double PIO2_1 = 0x1.921fb54400000p+0;
+	private static final double PIO2_2 = 0x1.0b4611a600000p-34;
+	private static final double PIO2_3 = 0x1.3198a2e037073p-69;
+	// the reduction is exact (up to |k| 2^-118) while k*PIO2_1 is exact,
+	// larger arguments are reduced with the bits of 2/pi
+	private static final double REDUCTION_LIMIT = 0x1p20;
+	// pi/2 = PIO2_H + PIO2_L with an error below 2^-107
+	private static final double PIO2_H = 0x1.921fb54442d18p+0;
+	private static final double PIO2_L = 0x1.1a62633145c07p-54;
+
+	// 2/pi, 64 bits per word; the first word stands for the
+	// (zero) bits before the binary point
+	private static final long[] TWO_OVER_PI_BITS = {
+		0L,
+		0xa2f9836e4e441529L, 0xfc2757d1f534ddc0L, 0xdb6295993c439041L,
+		0xfe5163abdebbc561L, 0xb7246e3a424dd2e0L, 0x06492eea09d1921cL,
+		0xfe1deb1cb129a73eL, 0xe88235f52ebb4484L, 0xe99c7026b45f7e41L,
+		0x3991d639835339f4L, 0x9c845f8bbdf9283bL, 0x1ff897ffde05980fL,
+		0xef2f118b5a0a6d1fL, 0x6d367ecf27cb09b7L, 0x4f463f669e5fea2dL,
+		0x7527bac7ebe5f17bL, 0x3d0739f78a5292eaL, 0x6bfb5fb11f8d5d08L,
+		0x56033046fc7b6babL, 0xf0cfbc209af4361dL, 0xa9e391615ee61b08L
+	};
+
+	// 2 pi = PI2_1 + PI2_2 with an error below 2^-106
+	private static final double PI2_1 = 0x1.921fb54442d18p+2;
+	private static final double PI2_2 = 0x1.1a62633145c07p-52;
+
+	// sin(d) = d + d^3 (S3 + ... + d^6 S9), cos(d) = 1 - d^2/2 + d^4 (C4 + ... + d^4 C8)
+	private static final double S3 = -1.0 / 6, S5 = 1.0 / 120, S7 = -1.0 / 5040, S9 = 1.0 / 362880;
+	private static final double C4 = 1.0 / 24, C6 = -1.0 / 720, C8 = 1.0 / 40320;
+
+	// sin(j/128), cos(j/128) as double-doubles, j = 0..103
+	private static final double[] SINCOS_TABLE = {
+		0.0, 0.0, 0x1p+0, 0.0, // 0/128
+		0x1.fffeaaaaeeeefp-8, -0x1.e45e2ec67b77cp-62, 0x1.fffc000155552p-1, 0x1.f4a01a0196daep-55, // 1/128
+		0x1.fffaaaaeeeed5p-7, -0x1.2ab639a9f0776p-63, 0x1.fff000155549fp-1, 0x1.28a28a03a5ef3p-55, // 2/128
+		0x1.7ff7001033255p-6, 0x1.efe2b51527336p-64, 0x1.ffdc006bff7e6p-1, 0x1.ae6dae86977bdp-55, // 3/128
+		0x1.ffeaaaeeee86fp-6, -0x1.cd406fb224ae2p-60, 0x1.ffc00155527d3p-1, -0x1.3b54492d89b5bp-55, // 4/128
+		0x1.3feb2b12d45d5p-5, 0x1.4ec54203d1c11p-60, 0x1.ff9c03414a7bap-1, 0x1.991f4be6c59bfp-57, // 5/128
+		0x1.7fdc01032fba9p-5, -0x1.599bdf46e997ap-59, 0x1.ff7006bfdf99fp-1, -0x1.8b3b560648d5fp-56, // 6/128
+		0x1.bfc6d78586dacp-5, 0x1.8e4fd03dbf236p-62, 0x1.ff3c0c8103a31p-1, 0x1.4856dbddc0e66p-56, // 7/128
+		0x1.ffaaaeeed4edbp-5, -0x1.2d16d32684b69p-59, 0x1.ff0015549f4d3p-1, 0x1.328387b99426fp-55, // 8/128
+		0x1.1fc343d808befp-4, -0x1.f3d32e6f3be4fp-58, 0x1.febc222a8ef9fp-1, 0x1.7934934f54c77p-58, // 9/128
+		0x1.3facb12d1755bp-4, -0x1.921915299468bp-58, 0x1.fe7034129ef6fp-1, -0x1.cbf4337c96f97p-57, // 10/128
+		0x1.5f911fd10b737p-4, -0x1.0184f02be9102p-58, 0x1.fe1c4c3c873ebp-1, -0x1.5a9c9057c4a02p-60, // 11/128
+		0x1.7f701032550e4p-4, 0x1.afc2d1800501ap-60, 0x1.fdc06bf7e6b9bp-1, 0x1.31902b535f8dbp-55, // 12/128
+		0x1.9f4902d55d1f9p-4, 0x1.2696d7eac1dc1p-58, 0x1.fd5c94b43e000p-1, -0x1.2e768cb4f92f9p-57, // 13/128
+		0x1.bf1b78568391dp-4, 0x1.e91841dea4cc8p-58, 0x1.fcf0c800e99b1p-1, 0x1.ea3d786d186acp-57, // 14/128
+		0x1.dee6f16c1cce6p-4, -0x1.50f8e2fb71673p-59, 0x1.fc7d078d1bc88p-1, 0x1.075d2447db685p-55, // 15/128
+		0x1.feaaeee86ee36p-4, -0x1.afcb2bcc6f03bp-59, 0x1.fc015527d5bd3p-1, 0x1.b68f35094efb8p-55, // 16/128
+		0x1.0f3378ddd71d1p-3, 0x1.d8468724f0f9ep-57, 0x1.fb7db2bfe0695p-1, 0x1.21dadf4f65ab1p-55, // 17/128
+		0x1.1f0d3d7afceafp-3, -0x1.6ef95099769a5p-57, 0x1.faf22263c4bd3p-1, -0x1.52ace133a2769p-58, // 18/128
+		0x1.2ee285e4ab88fp-3, -0x1.e4d0f05dee058p-57, 0x1.fa5ea641c36f2p-1, 0x1.04da6ed17cc7cp-59, // 19/128
+		0x1.3eb312c5d66cbp-3, 0x1.47d666b66cb91p-57, 0x1.f9c340a7cc428p-1, 0x1.c5b6b063b7462p-55, // 20/128
+		0x1.4e7ea4dc5f27bp-3, 0x1.949db2ac072fcp-58, 0x1.f91ff40374d01p-1, -0x1.7d03f4d3a9e4cp-57, // 21/128
+		0x1.5e44fcfa126f3p-3, -0x1.6f443063f89b6p-57, 0x1.f874c2e1eecf6p-1, -0x1.c6514e1332b16p-55, // 22/128
+		0x1.6e05dc05a4d4cp-3, -0x1.32c5c8b81c919p-66, 0x1.f7c1afeffde24p-1, -0x1.8f55bc47540b1p-56, // 23/128
+		0x1.7dc102fbaf2b5p-3, 0x1.5ab50e23c97c3p-59, 0x1.f706bdf9ece1cp-1, -0x1.698c80c36dcb4p-55, // 24/128
+		0x1.8d7632efaa944p-3, -0x1.20fa262cbb953p-57, 0x1.f643efeb82acdp-1, 0x1.6b00ac1fe28acp-56, // 25/128
+		0x1.9d252d0cec312p-3, 0x1.9c43d80b1137dp-58, 0x1.f57948cff6797p-1, 0x1.e3a0d3e03b1d4p-57, // 26/128
+		0x1.accdb297a0765p-3, -0x1.9883b57d6cdeap-58, 0x1.f4a6cbd1e3a79p-1, 0x1.13df0edaebb57p-55, // 27/128
+		0x1.bc6f84edc6199p-3, 0x1.9c1a56a7b0cabp-57, 0x1.f3cc7c3b3d16ep-1, -0x1.21a3ad28a3494p-57, // 28/128
+		0x1.cc0a6588289a3p-3, -0x1.868d09bc87c6bp-57, 0x1.f2ea5d753ffedp-1, 0x1.cc4215f56d583p-55, // 29/128
+		0x1.db9e15fb5a5d0p-3, -0x1.32e20d6cc6fc2p-57, 0x1.f20073086649fp-1, 0x1.b940416c1984bp-56, // 30/128
+		0x1.eb2a57f8ae5a3p-3, -0x1.0be06af572cebp-57, 0x1.f10ec09c5873bp-1, 0x1.d9072762c1283p-55, // 31/128
+		0x1.faaeed4f31577p-3, -0x1.15d88508e32b8p-57, 0x1.f01549f7deea1p-1, 0x1.d3c1e99e5cafdp-55, // 32/128
+		0x1.0515cbf65155cp-2, -0x1.9b8c29dfd8ec7p-56, 0x1.ef141300d2f26p-1, -0x1.2aa1b08ded372p-55, // 33/128
+		0x1.0cd00cef36436p-2, -0x1.9fb0a0c93e2b4p-56, 0x1.ee0b1fbc0f11cp-1, -0x1.bfd2380bbc3b1p-59, // 34/128
+		0x1.14861aa94ddebp-2, -0x1.be881b5b615a4p-57, 0x1.ecfa744d5efa1p-1, -0x1.56d0a4af541d0p-58, // 35/128
+		0x1.1c37d64c6b876p-2, 0x1.46076fe0dcff4p-56, 0x1.ebe214f76efa8p-1, -0x1.02f9f12ba543ep-55, // 36/128
+		0x1.23e52111aaf36p-2, -0x1.4f080334eff18p-56, 0x1.eac2061bbaf4fp-1, 0x1.2c1d53e94658dp-57, // 37/128
+		0x1.2b8ddc43eb49fp-2, 0x1.1553899f2d807p-57, 0x1.e99a4c3a7cd83p-1, -0x1.2264b1bc53ce8p-55, // 38/128
+		0x1.3331e94049f87p-2, 0x1.e0cb6b40c302cp-56, 0x1.e86aebf29a9edp-1, 0x1.9397afdbb58a7p-55, // 39/128
+		0x1.3ad129769d3d8p-2, 0x1.03d550487839ap-63, 0x1.e733ea0193d40p-1, -0x1.6428b3546ce13p-55, // 40/128
+		0x1.426b7e69ee697p-2, -0x1.f09c75705c59fp-56, 0x1.e5f54b436e9d0p-1, 0x1.7eb0fd02fc8bcp-55, // 41/128
+		0x1.4a00c9b0f3d20p-2, 0x1.823ba6bb08eadp-56, 0x1.e4af14b2a449cp-1, -0x1.68ca02e8a6833p-55, // 42/128
+		0x1.5190ecf68a77ap-2, 0x1.b357155eef0f3p-56, 0x1.e3614b680d6a5p-1, -0x1.27793aa015237p-56, // 43/128
+		0x1.591bc9fa2f597p-2, 0x1.7c74bac3fe0cbp-57, 0x1.e20bf49acd6c1p-1, -0x1.660aec7ef636bp-58, // 44/128
+		0x1.60a1429078775p-2, 0x1.b1fd80ba89133p-58, 0x1.e0af15a03dbcep-1, 0x1.fe8e702771ae6p-58, // 45/128
+		0x1.682138a38d7f7p-2, -0x1.d889202444aadp-56, 0x1.df4ab3ebd875ep-1, -0x1.e2d8a7e6736c4p-55, // 46/128
+		0x1.6f9b8e33a0255p-2, 0x1.42bc14ee9da0dp-56, 0x1.ddded50f228d6p-1, -0x1.e80c8d42ba2bfp-57, // 47/128
+		0x1.7710255764214p-2, -0x1.6ead7314bb6cep-57, 0x1.dc6b7eb995912p-1, 0x1.4b364776dcd35p-58, // 48/128
+		0x1.7e7ee03c86d4ep-2, -0x1.b63bcdabf5af2p-56, 0x1.daf0b6b888e83p-1, 0x1.a249e2b5e5ceap-55, // 49/128
+		0x1.85e7a12826949p-2, 0x1.8a40e9b5face0p-56, 0x1.d96e82f71a9dcp-1, 0x1.ff61bd5d2039dp-55, // 50/128
+		0x1.8d4a4a774992fp-2, 0x1.44a02ea766326p-56, 0x1.d7e4e97e17b4ap-1, -0x1.3b770352bed94p-57, // 51/128
+		0x1.94a6be9f546c5p-2, -0x1.69ce13e683f58p-56, 0x1.d653f073e4040p-1, -0x1.76236434bec37p-55, // 52/128
+		0x1.9bfce02e80510p-2, 0x1.09e39a320b0a4p-56, 0x1.d4bb9e1c619e0p-1, 0x1.f34bb77858f61p-55, // 53/128
+		0x1.a34c91cc50ccap-2, -0x1.a310e3b50cecdp-58, 0x1.d31bf8d8d7c06p-1, 0x1.e60dd3089cbddp-56, // 54/128
+		0x1.aa95b63a09277p-2, -0x1.6293eb13c0381p-57, 0x1.d1750727d94f0p-1, 0x1.0d52b1ec1a48ep-55, // 55/128
+		0x1.b1d8305321617p-2, -0x1.ae242cb99f519p-56, 0x1.cfc6cfa52ad9fp-1, 0x1.8b5b5508f2a0dp-55, // 56/128
+		0x1.b913e30dbac43p-2, -0x1.e38ad2f6c3ff1p-56, 0x1.ce115909a82e5p-1, 0x1.1f139bb31109ap-55, // 57/128
+		0x1.c048b17b140a3p-2, 0x1.19fe6757e9fa7p-57, 0x1.cc54aa2b2972ep-1, 0x1.4ee162ba83a98p-57, // 58/128
+		0x1.c7767ec7fd19ep-2, -0x1.eb14d1a3d5826p-58, 0x1.ca90c9fc67d0bp-1, -0x1.46a81485e3462p-57, // 59/128
+		0x1.ce9d2e3d4a51fp-2, -0x1.2fc8a12dae298p-57, 0x1.c8c5bf8ce1a84p-1, 0x1.ab3d1a1590123p-56, // 60/128
+		0x1.d5bca34047661p-2, 0x1.28a44a75fc29cp-56, 0x1.c6f39208be53bp-1, -0x1.741dbfbaadb42p-55, // 61/128
+		0x1.dcd4c15329c9ap-2, 0x1.0d4c6e171fd9ap-56, 0x1.c51a48b8b175ep-1, -0x1.1bbb43b9aa880p-57, // 62/128
+		0x1.e3e56c1582a69p-2, -0x1.0a4821099f88fp-58, 0x1.c339eb01ddd81p-1, -0x1.caaf5ee82c5c0p-55, // 63/128
+		0x1.eaee8744b05f0p-2, -0x1.789b43c9b027dp-58, 0x1.c1528065b7d50p-1, -0x1.892111312e828p-55, // 64/128
+		0x1.f1eff6bc4f97bp-2, 0x1.17212f8a7525cp-56, 0x1.bf641081e7536p-1, 0x1.b7bd71628a9a1p-55, // 65/128
+		0x1.f8e99e76abc97p-2, 0x1.9d950af2d00a3p-58, 0x1.bd6ea310294f5p-1, 0x1.31bbcc88c109dp-56, // 66/128
+		0x1.ffdb628d2f57ap-2, 0x1.f4a992e905b6ap-57, 0x1.bb723fe630f32p-1, 0x1.72bd2452d0a39p-56, // 67/128
+		0x1.0362939c69955p-1, -0x1.2d8cd78397b01p-55, 0x1.b96eeef58840ep-1, 0x1.45a3cc78fade0p-58, // 68/128
+		0x1.06d3686946e5bp-1, 0x1.3f5ae4538ff1bp-55, 0x1.b764b84b704c2p-1, -0x1.f5848c21b389bp-55, // 69/128
+		0x1.0a4021e9e1001p-1, -0x1.6f643a13914f6p-55, 0x1.b553a410c104ep-1, 0x1.8ff7947027a15p-58, // 70/128
+		0x1.0da8b26b5672ep-1, -0x1.a58def0bee909p-55, 0x1.b33bba89c8948p-1, 0x1.ea6a51d1f6ca9p-55, // 71/128
+		0x1.110d0c4b69c3bp-1, 0x1.d918998809981p-55, 0x1.b11d04162a4c6p-1, 0x1.1dd561efbc0c2p-56, // 72/128
+		0x1.146d21f8b7f82p-1, 0x1.bf9535e2739a8p-56, 0x1.aef78930bd275p-1, -0x1.f836279746f94p-56, // 73/128
+		0x1.17c8e5f2eedb0p-1, 0x1.35e57102e2488p-57, 0x1.accb526f69de5p-1, 0x1.8fb6a8dd6b6ccp-55, // 74/128
+		0x1.1b204acb02fddp-1, -0x1.f190c70cbb5fep-58, 0x1.aa98688308913p-1, -0x1.b83d607cd5072p-63, // 75/128
+		0x1.1e7343236574cp-1, 0x1.22a3fa4f41d5ap-56, 0x1.a85ed4373e02dp-1, 0x1.9be06385ec792p-57, // 76/128
+		0x1.21c1c1b0394cfp-1, 0x1.e5b324b23aa31p-58, 0x1.a61e9e72586afp-1, 0x1.58330e2fd453fp-55, // 77/128
+		0x1.250bb93788bbbp-1, 0x1.ea3d02457bccep-56, 0x1.a3d7d0352bdcfp-1, -0x1.68dbaeca19669p-55, // 78/128
+		0x1.28511c917a067p-1, -0x1.01df1d9a16b70p-55, 0x1.a18a729aee445p-1, 0x1.95e25736c0357p-60, // 79/128
+		0x1.2b91dea88421ep-1, -0x1.fa371db216ab0p-55, 0x1.9f368ed912f85p-1, -0x1.1d200c5791606p-55, // 80/128
+		0x1.2ecdf279a3082p-1, 0x1.d3557e0e7e37ep-55, 0x1.9cdc2e3f25e5cp-1, 0x1.3f99112993f62p-55, // 81/128
+		0x1.32054b148bc4fp-1, 0x1.f6b42095a135bp-55, 0x1.9a7b5a36a6514p-1, 0x1.722cfcc9fa7a9p-55, // 82/128
+		0x1.3537db9be0367p-1, 0x1.b327e7af040f0p-57, 0x1.98141c42e1310p-1, 0x1.d1ff80488f08dp-55, // 83/128
+		0x1.386597456282bp-1, -0x1.10fada93b07a8p-56, 0x1.95a67e00cb1fdp-1, -0x1.0befda21f862dp-55, // 84/128
+		0x1.3b8e715a2840ap-1, -0x1.97653a7d2f07ap-56, 0x1.93328926d9e92p-1, -0x1.bb77003600cdap-55, // 85/128
+		0x1.3eb25d36cd53ap-1, -0x1.be570e1570fc0p-58, 0x1.90b84784ddaf7p-1, -0x1.0feb10ab93b87p-56, // 86/128
+		0x1.41d14e4ba6790p-1, 0x1.4608fd287ecf5p-55, 0x1.8e37c303d9ad1p-1, -0x1.463a4b53d4bf8p-57, // 87/128
+		0x1.44eb381cf386bp-1, -0x1.3ed6c1e6a5505p-55, 0x1.8bb105a5dc900p-1, 0x1.863e03e9474c1p-55, // 88/128
+		0x1.48000e431159fp-1, -0x1.b194a7463ed10p-55, 0x1.89241985d871fp-1, 0x1.c48d9c413ed84p-55, // 89/128
+		0x1.4b0fc46aab761p-1, 0x1.0da05738cc59cp-61, 0x1.869108d77a6c6p-1, 0x1.338ffe2bfe9ddp-56, // 90/128
+		0x1.4e1a4e54ed51bp-1, -0x1.a492f89b7c76ap-55, 0x1.83f7dde701ca0p-1, -0x1.152cf609bc6e8p-59, // 91/128
+		0x1.511f9fd7b351cp-1, -0x1.5c0e861c48831p-55, 0x1.8158a31916d5dp-1, -0x1.de8b90b8228dep-57, // 92/128
+		0x1.541facddbb724p-1, 0x1.232c28520d391p-56, 0x1.7eb362eaa1488p-1, 0x1.a1d65a4a5959fp-58, // 93/128
+		0x1.571a6966d59b3p-1, 0x1.c843b4d0fb197p-58, 0x1.7c0827f09e54fp-1, -0x1.c73d6d72aee68p-57, // 94/128
+		0x1.5a0fc98813a12p-1, -0x1.d82e2b7d4227bp-55, 0x1.7956fcd7f6543p-1, -0x1.ab276e9d45ae4p-55, // 95/128
+		0x1.5cffc16bf8f0dp-1, 0x1.96cb370eb578ap-55, 0x1.769fec655211fp-1, -0x1.827d5cf8c68c5p-57, // 96/128
+		0x1.5fea4552a9e57p-1, 0x1.0b6cef7ee20b7p-55, 0x1.73e30174efba1p-1, -0x1.5d3ae3d94ad5fp-57, // 97/128
+		0x1.62cf49921ac79p-1, -0x1.edd9855b6241ap-55, 0x1.712046fa77678p-1, 0x1.425b0a5029c81p-55, // 98/128
+		0x1.65aec2963e755p-1, 0x1.126f96b71053cp-55, 0x1.6e57c800cf55ep-1, 0x1.60286dedbd0a6p-55, // 99/128
+		0x1.6888a4e134b2fp-1, -0x1.6b7d37644d5e6p-55, 0x1.6b898fa9efb5dp-1, 0x1.15ac786ccf4b2p-56, // 100/128
+		0x1.6b5ce50b7821ap-1, -0x1.5d5158f702e0fp-57, 0x1.68b5a92eb6253p-1, -0x1.9a91ad985f89cp-55, // 101/128
+		0x1.6e2b77c40bde1p-1, -0x1.0e729857fad53p-56, 0x1.65dc1fdeb8cbap-1, -0x1.97c1b47337c77p-58, // 102/128
+		0x1.70f451d0a8c40p-1, 0x1.97ede3885770dp-57, 0x1.62fcff20191c7p-1, 0x1.d9143895756efp-57 // 103/128
+	};
+
+	/*
+	 * The reduced argument: x = k pi/2 + rh + rl, |rh + rl| <= pi/4
+	 * (a little more because k is computed with rounding), err bounds
+	 * |x - k pi/2 - (rh + rl)|, quadrant is k mod 8; and yh + yl, the
+	 * last sin(r) or cos(r).
+	 * Kept per thread to return several values without allocation.
+	 */
+	private static final class Reduced {
+		double rh, rl, err;
+		int quadrant;
+		double yh, yl;
+	}
+
+	private static final ThreadLocal<Reduced> reduced = new ThreadLocal<Reduced>() {
+		@Override
+		protected Reduced initialValue() {
+			return new Reduced();
+		}
+	};
+
+	private static double sin(double x, boolean upper) {
+		if (!(Math.abs(x) <= Double.MAX_VALUE))
+			return Double.NaN;
+		if (Math.abs(x) < 0x1p-27) {
+			// sin(x) = x - x^3/6 + ..., strictly between x and the next double towards 0
+			if (x == 0)
+				return x;
+			if (x > 0)
+				return upper ? x : RMath.down(x);
+			return upper ? RMath.up(x) : x;
+		}
+		Reduced r = reduce(x);
+		double y = sinOrCos(r, r.quadrant, upper);
+		return clamp(y);
+	}
+
+	private static double cos(double x, boolean upper) {
+		if (!(Math.abs(x) <= Double.MAX_VALUE))
+			return Double.NaN;
+		if (Math.abs(x) < 0x1p-27) {
+			// cos(x) = 1 - x^2/2 + ..., strictly between 1 - 2^-53 and 1
+			if (x == 0)
+				return 1.0;
+			return upper ? 1.0 : RMath.down(1.0);
+		}
+		Reduced r = reduce(x);
+		double y = sinOrCos(r, r.quadrant + 1, upper);
+		return clamp(y);
+	}
+
+	private static double tan(double x, boolean upper) {
+		if (!(Math.abs(x) <= Double.MAX_VALUE))
+			return Double.NaN;
+		if (Math.abs(x) < 0x1p-27) {
+			// tan(x) = x + x^3/3 + ..., strictly between x and the next double away from 0
+			if (x == 0)
+				return x;
+			if (x > 0)
+				return upper ? RMath.up(x) : x;
+			return upper ? x : RMath.down(x);
+		}
+		Reduced r = reduce(x);
+		double rh = r.rh, rl = r.rl;
+		boolean negative = rh < 0;
+		if (negative) {
+			rh = -rh;
+			rl = -rl;
+		}
+		sinR(r, rh, rl);
+		double sh = r.yh, sl = r.yl;
+		cosR(r, rh, rl);
+		double ch = r.yh, cl = r.yl;
+		// tan(x) = tan(r) for even quadrants, -cot(r) for odd ones
+		double nh = sh, nl = sl, dh = ch, dl = cl;
+		boolean minus = negative;
+		if ((r.quadrant & 1) != 0) {
+			nh = ch;
+			nl = cl;
+			dh = sh;
+			dl = sl;
+			minus = !negative;
+		}
+		double th = nh / dh;
+		double tl = (Math.fma(-th, dh, nh) + nl - th * dl) / dh;
+		double s = th + tl;
+		tl = tl - (s - th);
+		th = s;
+		if (minus) {
+			th = -th;
+			tl = -tl;
+		}
+		// d tan(x)/dx = 1 + tan(x)^2
+		double err = Math.abs(th) * TAN_ERR + r.err * (1 + th * th) * 1.001;
+		return round(th, tl, err, upper);
+	}
+
+	/*
+	 * Encloses sin(2 pi z) in sin and cos(2 pi z) in cos. Here the
+	 * reduction z = k/4 + w, |w| <= 1/8, is exact for every z, 2 pi w
+	 * is a double-double with a relative error below 2^-102, and one
+	 * reduction serves both functions.
+	 */
+	static void sincos2pi(double z, RealInterval sin, RealInterval cos) {
+		if (!(Math.abs(z) < 0x1p52)) {
+			if (z != z) {
+				sin.lo = sin.hi = cos.lo = cos.hi = z;
+			} else if (Double.isInfinite(z)) {
+				sin.lo = cos.lo = -1.0;
+				sin.hi = cos.hi = 1.0;
+			} else { // an integer
+				sin.lo = sin.hi = 0.0;
+				cos.lo = cos.hi = 1.0;
+			}
+			return;
+		}
+		double k = Math.rint(4 * z);
+		double w = z - k * 0.25; // exact
+		int quadrant = (int) (long) k & 3;
+		if (w == 0) {
+			// sin and cos are 0, 1, 0, -1 and 1, 0, -1, 0
+			double s = (quadrant & 1) == 0 ? 0.0 : 2 - quadrant;
+			double c = (quadrant & 1) == 0 ? 1 - quadrant : 0.0;
+			sin.lo = sin.hi = s;
+			cos.lo = cos.hi = c;
+			return;
+		}
+		double a = Math.abs(w);
+		if (a < 0x1p-900) {
+			// k = 0, sin(2 pi a) = 2 pi a (1 - O(a^2)), computed 2^200
+			// times larger to keep the products normal
+			double b = a * 0x1p200;
+			double bh = b * PI2_1;
+			double bl = Math.fma(b, PI2_1, -bh) + b * PI2_2;
+			double l = round(bh, bl, bh * 0x1p-100, false);
+			double h = round(bh, bl, bh * 0x1p-100, true);
+			double lo = Math.scalb(l, -200), hi = Math.scalb(h, -200);
+			if (Math.scalb(lo, 200) > l) // rounded up to a subnormal
+				lo = RMath.down(lo);
+			if (Math.scalb(hi, 200) < h)
+				hi = RMath.up(hi);
+			if (w > 0) {
+				sin.lo = lo;
+				sin.hi = hi;
+			} else {
+				sin.lo = -hi;
+				sin.hi = -lo;
+			}
+			cos.lo = RMath.down(1.0);
+			cos.hi = 1.0;
+			return;
+		}
+		double rh = w * PI2_1;
+		double rl = Math.fma(w, PI2_1, -rh) + w * PI2_2;
+		double t = rh + rl;
+		rl = rl - (t - rh);
+		rh = t;
+		sincos(reduced.get(), rh, rl, Math.abs(rh) * 0x1p-100, quadrant, sin, cos);
+	}
+
+	/*
+	 * Encloses sin([a, b]) in sin and cos([a, b]) in cos, a <= b: the
+	 * values at the ends, from one reduction each, and the extrema at
+	 * the multiples of pi/2 between them, which are counted from the
+	 * quadrants of the ends.
+	 */
+	static void sincos(double a, double b, RealInterval sin, RealInterval cos) {
+		// b - a < 6 < 2 pi: at most four multiples of pi/2 between a and b
+		if (b - a < 6) {
+			RealInterval sb = new RealInterval(), cb = new RealInterval();
+			int fa = floorQuadrant(sincos(a, sin, cos), false);
+			int fb = floorQuadrant(sincos(b, sb, cb), true);
+			int n = (fb - fa) & 7;
+			if (n < 4) {
+				sin.lo = Math.min(sin.lo, sb.lo);
+				sin.hi = Math.max(sin.hi, sb.hi);
+				cos.lo = Math.min(cos.lo, cb.lo);
+				cos.hi = Math.max(cos.hi, cb.hi);
+				for (int i = 1; i <= n; i++) {
+					switch ((fa + i) & 3) {
+					case 0:
+						cos.hi = 1.0;
+						break;
+					case 1:
+						sin.hi = 1.0;
+						break;
+					case 2:
+						cos.lo = -1.0;
+						break;
+					default:
+						sin.lo = -1.0;
+					}
+				}
+				return;
+			}
+		}
+		sin.lo = cos.lo = -1.0;
+		sin.hi = cos.hi = 1.0;
+	}
+
+	/*
+	 * Encloses tan([a, b]), a <= b: tan is increasing between its poles
+	 * at the odd multiples of pi/2, [-inf, inf] if there is one in [a, b]
+	 */
+	static RealInterval tan(double a, double b) {
+		// b - a < 3 < pi: at most two multiples of pi/2
+		if (b - a < 3) {
+			int fa = floorQuadrant(reduce(a), false);
+			int fb = floorQuadrant(reduce(b), true);
+			int n = (fb - fa) & 7;
+			if (n == 0 || (n == 1 && (fb & 1) == 0))
+				return new RealInterval(tan(a, false), tan(b, true));
+		}
+		return new RealInterval();
+	}
+
+	/*
+	 * floor(x / (pi/2)) mod 8 from the reduction of x. An end closer to a
+	 * multiple of pi/2 than the error of the reduction is counted on the
+	 * side which puts the multiple inside the interval.
+	 */
+	private static int floorQuadrant(Reduced r, boolean upperEnd) {
+		// rh > 2 err also covers rl, |rl| <= ulp(rh)/2
+		if (upperEnd)
+			return r.rh < -2 * r.err ? r.quadrant - 1 : r.quadrant;
+		return r.rh > 2 * r.err ? r.quadrant : r.quadrant - 1;
+	}
+
+	// sin(x) into sin, cos(x) into cos; returns the reduction of x
+	private static Reduced sincos(double x, RealInterval sin, RealInterval cos) {
+		Reduced r = reduce(x);
+		if (x == 0) {
+			sin.lo = sin.hi = x;
+			cos.lo = cos.hi = 1.0;
+		} else
+			sincos(r, r.rh, r.rl, r.err, r.quadrant, sin, cos);
+		return r;
+	}
+
+	/*
+	 * sin and cos of k pi/2 + rh + rl, k mod 4 = quadrant mod 4, where
+	 * rh + rl has the error err. sin(k pi/2 + r) = ws sin(r) + wc cos(r)
+	 * with ws, wc = 1, 0, -1, 0 and 0, 1, 0, -1 for k = 0..3, and
+	 * cos(k pi/2 + r) = ws cos(r) - wc sin(r); the sums are exact and,
+	 * unlike a switch, never mispredicted.
+	 */
+	private static void sincos(Reduced r, double rh, double rl, double err, int quadrant, RealInterval sin, RealInterval cos) {
+		double sign = Math.copySign(1.0, rh);
+		rh *= sign;
+		rl *= sign;
+		sinR(r, rh, rl);
+		double sh = r.yh * sign, sl = r.yl * sign;
+		cosR(r, rh, rl);
+		double ch = r.yh, cl = r.yl;
+		int q = quadrant & 3;
+		double ws = (1 - q) * ((q + 1) & 1);
+		double wc = (2 - q) * (q & 1);
+		enclose(ws * sh + wc * ch, ws * sl + wc * cl, err, sin);
+		enclose(ws * ch - wc * sh, ws * cl - wc * sl, err, cos);
+	}
+
+	private static void enclose(double yh, double yl, double err, RealInterval y) {
+		err += Math.abs(yh) * TRIG_ERR;
+		y.lo = clamp(round(yh, yl, err, false));
+		y.hi = clamp(round(yh, yl, err, true));
+	}
+
+	private static double clamp(double y) {
+		return Math.max(-1.0, Math.min(1.0, y));
+	}
+
+	private static Reduced reduce(double x) {
+		Reduced r = reduced.get();
+		if (!(Math.abs(x) < REDUCTION_LIMIT)) {
+			reduceLarge(x, r);
+			return r;
+		}
+		double k = Math.rint(x * TWO_OVER_PI);
+		double a = x - k * PIO2_1; // exact
+		double b = k * PIO2_2; // exact
+		double rh = a - b;
+		double rl = twoSumErr(a, -b, rh);
+		double c = k * PIO2_3;
+		double ce = Math.fma(k, PIO2_3, -c);
+		double h = rh - c;
+		rl = twoSumErr(rh, -c, h) + rl - ce;
+		rh = h + rl;
+		rl = rl - (rh - h);
+		r.rh = rh;
+		r.rl = rl;
+		r.err = Math.abs(k) * 0x1p-117 + Math.abs(rh) * 0x1p-100;
+		r.quadrant = (int) (long) k & 7;
+		return r;
+	}
+
+	/*
+	 * Payne-Hanek reduction of a finite |x| >= 2^20. With x = m 2^e, m
+	 * an integer of 53 bits, the bits of 2/pi before position e - 10
+	 * add a multiple of 8 to x 2/pi and those after position e + 181
+	 * less than 2^-128; the 192 bits between give k mod 8 and the
+	 * fraction r 2/pi, which is converted to a double-double and
+	 * multiplied by pi/2.
+	 */
+	private static void reduceLarge(double x, Reduced r) {
+		long bits = Double.doubleToRawLongBits(x);
+		int e = (int) (bits >>> 52 & 0x7ff) - 1075;
+		long m = bits & 0x000fffffffffffffL | 0x0010000000000000L;
+		int j = e + 53; // position e - 10 in the table
+		long w0 = bitsOf2OverPi(j), w1 = bitsOf2OverPi(j + 64), w2 = bitsOf2OverPi(j + 128);
+
+		// m (w0 w1 w2) mod 2^192, the binary point is after bit 181
+		long p2 = m * w2;
+		long q1 = m * w1;
+		long p1 = q1 + unsignedMultiplyHigh(m, w2);
+		long p0 = m * w0 + unsignedMultiplyHigh(m, w1) + (Long.compareUnsigned(p1, q1) < 0 ? 1 : 0);
+
+		int k = (int) (p0 >>> 53) & 7;
+		double fh = (p0 & 0x001fffffffffffffL) * 0x1p-53;
+		double fm = (p1 >>> 11) * 0x1p-106;
+		double fl = ((p1 & 0x7ff) << 42 | p2 >>> 22) * 0x1p-159;
+		if (fh >= 0.5) {
+			fh -= 1;
+			k++;
+		}
+		// fh + fm is exact when it cancels
+		double f = fh + fm;
+		double g = twoSumErr(fh, fm, f) + fl;
+		double fH = f + g;
+		double fL = g - (fH - f);
+
+		double rh = fH * PIO2_H;
+		double rl = Math.fma(fH, PIO2_H, -rh) + (fH * PIO2_L + fL * PIO2_H);
+		double t = rh + rl;
+		rl = rl - (t - rh);
+		rh = t;
+		if (x < 0) {
+			rh = -rh;
+			rl = -rl;
+			k = -k;
+		}
+		r.rh = rh;
+		r.rl = rl;
+		r.err = Math.abs(rh) * 0x1p-100 + 0x1p-126;
+		r.quadrant = k & 7;
+	}
+
+	// 64 bits of the table from bit j
+	private static long bitsOf2OverPi(int j) {
+		int w = j >>> 6, s = j & 63;
+		long a = TWO_OVER_PI_BITS[w];
+		return s == 0 ? a : a << s | TWO_OVER_PI_BITS[w + 1] >>> 64 - s;
+	}
+
+	private static long unsignedMultiplyHigh(long x, long y) {
+		return Math.multiplyHigh(x, y) + (x >> 63 & y) + (y >> 63 & x);
+	}
+
+	/*
+	 * sin(x) for quadrant q, cos(x) is sin(x) for quadrant q+1:
+	 * sin(r), cos(r), -sin(r), -cos(r)
+	 */
+	private static double sinOrCos(Reduced r, int quadrant, boolean upper) {
+		double rh = r.rh, rl = r.rl;
+		boolean negative = rh < 0;
+		if (negative) {
+			rh = -rh;
+			rl = -rl;
+		}
+		boolean minus;
+		if ((quadrant & 1) == 0) {
+			sinR(r, rh, rl);
+			minus = negative ^ ((quadrant & 2) != 0);
+		} else {
+			cosR(r, rh, rl);
+			minus = (quadrant & 2) != 0;
+		}
+		double yh = r.yh, yl = r.yl;
+		if (minus) {
+			yh = -yh;
+			yl = -yl;
+		}
+		return round(yh, yl, Math.abs(yh) * TRIG_ERR + r.err, upper);
+	}
+
+	/*
+	 * sin(r) and cos(r) for 0 <= r = rh + rl <= pi/4 + 2^-40:
+	 * r = c + d with c = j/128,
+	 *   sin(r) = sin(c) + sin(c) (cos(d) - 1) + cos(c) sin(d)
+	 *   cos(r) = cos(c) + cos(c) (cos(d) - 1) - sin(c) sin(d)
+	 * The result is left in r.yh + r.yl.
+	 */
+	private static void sinR(Reduced r, double rh, double rl) {
+		int j = (int) (rh * 128 + 0.5);
+		double dh = rh - j * (1.0 / 128); // exact
+		double d2 = dh * dh;
+		double sd = dh * d2 * (S3 + d2 * (S5 + d2 * (S7 + d2 * S9))); // sin(d) - d
+		double cm = -0.5 * (d2 + 2 * dh * rl) + d2 * d2 * (C4 + d2 * (C6 + d2 * C8)); // cos(d) - 1
+		double sh = SINCOS_TABLE[4 * j], sl = SINCOS_TABLE[4 * j + 1];
+		double ch = SINCOS_TABLE[4 * j + 2], cl = SINCOS_TABLE[4 * j + 3];
+		// sin(c) + cos(c) dh
+		double p = ch * dh;
+		double pe = Math.fma(ch, dh, -p) + ch * rl + cl * dh;
+		double yh = sh + p;
+		double yl = (sh - yh) + p + sl + pe + sh * cm + ch * sd; // sh = 0 or sh > |p|
+		r.yh = yh + yl;
+		r.yl = yl - (r.yh - yh);
+	}
+
+	private static void cosR(Reduced r, double rh, double rl) {
+		int j = (int) (rh * 128 + 0.5);
+		double dh = rh - j * (1.0 / 128); // exact
+		double d2 = dh * dh;
+		double sd = dh * d2 * (S3 + d2 * (S5 + d2 * (S7 + d2 * S9)));
+		double d2l = Math.fma(dh, dh, -d2) + 2 * dh * rl;
+		double sh = SINCOS_TABLE[4 * j], sl = SINCOS_TABLE[4 * j + 1];
+		double ch = SINCOS_TABLE[4 * j + 2], cl = SINCOS_TABLE[4 * j + 3];
+		// cos(c) - cos(c) d^2/2 - sin(c) dh
+		double h = -0.5 * d2;
+		double hp = ch * h;
+		double hpe = Math.fma(ch, h, -hp) - 0.5 * (ch * d2l + cl * d2) + ch * d2 * d2 * (C4 + d2 * (C6 + d2 * C8));
+		double q = sh * dh;
+		double qe = Math.fma(sh, dh, -q) + sh * rl + sl * dh;
+		double yh = ch - q;
+		double yl = (ch - yh) - q;
+		double zh = yh + hp;
+		double zl = (yh - zh) + hp + yl + cl + hpe - qe - sh * sd;
+		r.yh = zh + zl;
+		r.yl = zl - (r.yh - zh);
+	}
+
+	// the rounding error of s = a + b
+	private static double twoSumErr(double a, double b, double s) {
+		return RMath.add_err(a, b, s);
+	}
+}
@@ -1,10 +1,7 @@
 
 package net.sourceforge.interval.ia_math;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.text.MessageFormat;
-import java.util.Locale;
 
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 import net.sourceforge.interval.ia_math.exceptions.*;
@@ -39,27 +36,19 @@ public class RealInterval implements Cloneable{
 	/*final*/ double lo;
 	/*final*/ double hi;
 
-	private static final DecimalFormat plainFormat2digits;
-	private static final DecimalFormat scientificFormat3digits;
-
+	/**
+	 * the empty interval, lo = +inf > hi = -inf. An interval is empty
+	 * if lo > hi, not by identity with EMPTY (copies of it are empty
+	 * too), so test with isEmpty(). IAMath and IANarrow return EMPTY for
+	 * empty results and propagate it through all operations. It is
+	 * shared: never change its bounds.
+	 */
+	public static final RealInterval EMPTY = new RealInterval();
 	static {
-		  Locale L = new Locale("en");
-		  Locale.setDefault(L);	  
-		  plainFormat2digits = new DecimalFormat("#0.00");
-		  DecimalFormatSymbols s = plainFormat2digits.getDecimalFormatSymbols();
-		  s.setInfinity("inf");
-		  s.setDecimalSeparator('.');
-		  s.setGroupingSeparator(',');	  
-		  plainFormat2digits.setDecimalFormatSymbols(s);
-		  plainFormat2digits.setGroupingSize(3);
-		  plainFormat2digits.setGroupingUsed(true);
-		  
-		  scientificFormat3digits = new DecimalFormat("0.000E0");
-		  DecimalFormatSymbols s2 = scientificFormat3digits.getDecimalFormatSymbols();
-		  s2.setInfinity("inf");
-		  s2.setDecimalSeparator('.');
-		  scientificFormat3digits.setDecimalFormatSymbols(s2);
+		EMPTY.lo = Double.POSITIVE_INFINITY;
+		EMPTY.hi = Double.NEGATIVE_INFINITY;
 	}
+
   public RealInterval(double lo, double hi) throws IARuntimeException
   {
 //	  isEmpty = false;
@@ -99,6 +88,10 @@ public double lo() {
     return this.hi;
   }
 
+  public boolean isEmpty() {
+	  return lo > hi;
+  }
+
 	// as far as we implementing custom equals
 	// we need to implement hashCode as well
 	@Override
@@ -135,9 +128,9 @@ public double lo() {
 	    return equals(that);
 	}
 	private static boolean compareInfinitys(double a, double b) {
-		if ( 	Double.isInfinite(a) && Double.isInfinite(b) 
+		if ( 	Double.isInfinite(a) && Double.isInfinite(b)
 					&&
-				(a > 0 && b > 0) || (a < 0 && b < 0) 
+				( (a > 0 && b > 0) || (a < 0 && b < 0) )
 			) {
 				return true;
 		} else
@@ -154,89 +147,78 @@ public double lo() {
     		
 	@Override
 	public String toString() {
-		return toString12();
+		if (isEmpty())
+			return "[empty]";
+		return IntervalFormat.SCIENTIFIC.format(this);
+	}
+	public String toString(IntervalFormat format) {
+		return format.format(this);
 	}
-  private String toString11(){
-	  return "[" + plainFormat2digits.format(lo) + ", " + plainFormat2digits.format(hi) + "]";
-  }  
-  private String toString12(){
-	  return "[" + scientificFormat3digits.format(lo) + ", " + scientificFormat3digits.format(hi) + "]";
-  }  
-  private String toString1(){
-    return
-        "[" +
-         doubleToString(this.lo) +
-        " , " +
-         doubleToString(this.hi) +
-        "]";
-    }
-
-  private String toString1a(){
-    return
-        "[" +
-        ((new Double(this.lo)).toString()) +
-        " , " +
-        ((new Double(this.hi)).toString()) +
-        "]";
-    }
-
-  private String toString2(){
-    Double midpoint =  new Double((this.lo + this.hi)/2.0);
-    String midpointString =  doubleToString((this.lo + this.hi)/2.0);
-    String      hi1String =  doubleToString(this.hi - midpoint.doubleValue());
-    if (Math.abs(midpoint.doubleValue()) > (this.hi-this.lo)/2.0)
-      return
-        "("+
-        midpointString +
-        " +/- " +
-        hi1String +
-        ") ";
-    else
-     return(this.toString1());
-
-  }
-
-
-  private String doubleToString(double x) {
-    StringBuffer s = new StringBuffer((new Double(x)).toString());
-    int i = s.length(); 
-    int j;
-    for(j=1;j<20-i;i++) s.append(' ');
-    return(s.toString());
-  }
 
   public Object clone() {
-    return new RealInterval(this.lo,this.hi);
+    return new RealInterval(this); // also copies the empty bounds
   }
   
   // nvpanov
   public double wid() {
+	  if (isEmpty())
+		  return 0.0;
 	  return Math.abs(hi - lo);
   }
 	  //nvpanov
 	  public boolean contains(double value) {
-		  if (!Double.isInfinite(value))
-			  return this.lo() <= value && value <= this.hi();
-		  else
-			  return compareInfinitys(lo(), value) || compareInfinitys(hi(), value);
+		  return contains(lo, hi, value);
 	  }
   public boolean contains(RealInterval x) {
 	  if (x == null)
 		  return false;
+	  if (x.isEmpty())
+		  return true;
 	  return contains(x.hi()) && contains(x.lo());
-  }  
+  }
   public boolean containsNotEqual(RealInterval x) {
 	  return contains(x) && !equals(x);
   }
 
   public boolean isIntersects(RealInterval y) {
-		RealInterval x = this;
-		return (x.contains(y.lo()) || x.contains(y.hi()) ||
-				y.contains(x.lo()) || y.contains(x.hi()) );
+		return isIntersects(lo, hi, y.lo, y.hi);
 	}
 
-  
-  
+  // the same checks on raw bounds, for interval storages
+  // which do not keep RealInterval objects
+  static boolean contains(double lo, double hi, double value) {
+	  if (!(lo <= hi)) // empty
+		  return false;
+	  if (!Double.isInfinite(value))
+		  return lo <= value && value <= hi;
+	  else
+		  return compareInfinitys(lo, value) || compareInfinitys(hi, value);
+  }
+  static boolean isIntersects(double xl, double xh, double yl, double yh) {
+	  if (!(xl <= xh) || !(yl <= yh))
+		  return false;
+	  return (contains(xl, xh, yl) || contains(xl, xh, yh) ||
+			  contains(yl, yh, xl) || contains(yl, yh, xh) );
+  }
+
+
+  /*
+   * A finite point strictly inside [lo, hi], at lo + ratio*(hi - lo) if
+   * the interval is bounded; NaN if there is none (a point or two
+   * neighbouring doubles). For bisecting solvers.
+   */
+  static double split(double lo, double hi, double ratio) {
+	  double m;
+	  if (lo == Double.NEGATIVE_INFINITY)
+		  m = hi == Double.POSITIVE_INFINITY ? 0.0 : hi - Math.max(1.0, Math.abs(hi));
+	  else if (hi == Double.POSITIVE_INFINITY)
+		  m = lo + Math.max(1.0, Math.abs(lo));
+	  else
+		  m = lo + (hi - lo) * ratio;
+	  if (Double.isInfinite(m) || Double.isNaN(m)) // hi - lo overflowed
+		  m = lo * (1 - ratio) + hi * ratio;
+	  return lo < m && m < hi && !Double.isInfinite(m) ? m : Double.NaN;
+  }
   
 public boolean almostEquals(RealInterval i) {
 	return Math.abs( (lo - i.lo) + (hi - i.hi) ) < 1e-3;
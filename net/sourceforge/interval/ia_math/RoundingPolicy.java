@@ -0,0 +1,419 @@
+package net.sourceforge.interval.ia_math;
+
+import static net.sourceforge.interval.ia_math.IMathDetails.checkSizes;
+import net.sourceforge.interval.ia_math.exceptions.IAComputationalException;
+
+/**
+ * RoundingPolicy decides how the bounds of the arithmetic operations are
+ * rounded. Unlike IAMath.useSimpleRounding(), which switches the whole
+ * JVM, a policy is an ordinary object: each solver or evaluation context
+ * keeps its own one, so e.g. a fast non-rigorous pre-screen and a
+ * rigorous verification can run concurrently in one process.
+ * <ul>
+ * <li>OUTWARD -- every bound is moved one ulp outwards, as RMath does
+ *     by default; always rigorous.</li>
+ * <li>TIGHT -- a bound is moved only if the operation was inexact and
+ *     the exact result lies beyond it; always rigorous, and the bounds
+ *     of exact operations (e.g. on small integers) stay thin.</li>
+ * <li>NONE -- round to nearest, no correction at all; not rigorous
+ *     but the fastest, as the simple rounding of RMath.</li>
+ * <li>GLOBAL -- follows IAMath.useSimpleRounding(), which is what
+ *     IAMath itself uses.</li>
+ * </ul>
+ * The policies are stateless singletons of final classes. Only a policy
+ * read from a static final (e.g. RoundingPolicy.TIGHT itself) is a
+ * constant to the JIT; one held in an instance field, as by
+ * IntervalAccumulator, is called through a profiled call site, which is
+ * inlined while it sees one or two policies and gets a virtual call
+ * once a process uses more.
+ */
+public abstract class RoundingPolicy {
+
+	public static final RoundingPolicy OUTWARD = new Outward();
+	public static final RoundingPolicy TIGHT = new Tight();
+	public static final RoundingPolicy NONE = new None();
+	public static final RoundingPolicy GLOBAL = new Global();
+
+	RoundingPolicy() {
+	}
+
+	/**
+	 * whether the bounds computed with this policy are guaranteed
+	 * to enclose the exact results
+	 */
+	public abstract boolean isRigorous();
+
+	public abstract double add_lo(double x, double y);
+	public abstract double add_hi(double x, double y);
+	public abstract double sub_lo(double x, double y);
+	public abstract double sub_hi(double x, double y);
+	// a zero factor gives exact 0.0, as in RMath
+	public abstract double mul_lo(double x, double y);
+	public abstract double mul_hi(double x, double y);
+	public abstract double div_lo(double x, double y);
+	public abstract double div_hi(double x, double y);
+
+	/*
+	 * Endpoints of [xl, xu] * [yl, yu] and [xl, xu] / [yl, yu] computed
+	 * without creating intervals. They follow the case analysis of
+	 * IAMath.mul() and IAMath.div().
+	 */
+	public final double mul_lo(double xl, double xu, double yl, double yu) {
+		if (xl < 0)
+			if (xu > 0)
+				if (yl < 0)
+					if (yu > 0) // M * M
+						return Math.min(mul_lo(xl, yu), mul_lo(xu, yl));
+					else 		// M * N
+						return mul_lo(xu, yl);
+				else
+					if (yu > 0) // M * P
+						return mul_lo(xl, yu);
+					else 		// M * Z
+						return 0;
+			else
+				if (yl < 0)
+					if (yu > 0) // N * M
+						return mul_lo(xl, yu);
+					else 		// N * N
+						return mul_lo(xu, yu);
+				else
+					if (yu > 0) // N * P
+						return mul_lo(xl, yu);
+					else 		// N * Z
+						return 0;
+		else
+			if (xu > 0)
+				if (yl < 0)		// P * M, P * N
+					return mul_lo(xu, yl);
+				else
+					if (yu > 0) // P * P
+						return mul_lo(xl, yl);
+					else 		// P * Z
+						return 0;
+			else 				// Z * ?
+				return 0;
+	}
+
+	public final double mul_hi(double xl, double xu, double yl, double yu) {
+		if (xl < 0)
+			if (xu > 0)
+				if (yl < 0)
+					if (yu > 0) // M * M
+						return Math.max(mul_hi(xl, yl), mul_hi(xu, yu));
+					else 		// M * N
+						return mul_hi(xl, yl);
+				else
+					if (yu > 0) // M * P
+						return mul_hi(xu, yu);
+					else 		// M * Z
+						return 0;
+			else
+				if (yl < 0)		// N * M, N * N
+					return mul_hi(xl, yl);
+				else
+					if (yu > 0) // N * P
+						return mul_hi(xu, yl);
+					else 		// N * Z
+						return 0;
+		else
+			if (xu > 0)
+				if (yl < 0)
+					if (yu > 0) // P * M
+						return mul_hi(xu, yu);
+					else 		// P * N
+						return mul_hi(xl, yu);
+				else
+					if (yu > 0) // P * P
+						return mul_hi(xu, yu);
+					else 		// P * Z
+						return 0;
+			else 				// Z * ?
+				return 0;
+	}
+
+	public final double div_lo(double xl, double xu, double yl, double yu) throws IAComputationalException {
+		if (xl == 0 && xu == 0)
+			return 0;
+		if (yl <= 0 && 0 <= yu) {
+			if (yl != 0)
+				if (yu != 0) // x / [y .. 0 .. y]
+					return Double.NEGATIVE_INFINITY;
+				else // x / [y, 0]
+					return xu < 0 ? div_lo(xu, yl) : Double.NEGATIVE_INFINITY;
+			else
+				if (yu != 0) // x / [0, y]
+					return xu < 0 || xl < 0 ? Double.NEGATIVE_INFINITY : div_lo(xl, yu);
+				else // x/ [0, 0]
+					throw new IAComputationalException("Division by Zero");
+		}
+		if (xu < 0)
+			return yu < 0 ? div_lo(xu, yl) : div_lo(xl, yl);
+		else if (xl < 0)
+			return yu < 0 ? div_lo(xu, yu) : div_lo(xl, yl);
+		else
+			return yu < 0 ? div_lo(xu, yu) : div_lo(xl, yu);
+	}
+
+	public final double div_hi(double xl, double xu, double yl, double yu) throws IAComputationalException {
+		if (xl == 0 && xu == 0)
+			return 0;
+		if (yl <= 0 && 0 <= yu) {
+			if (yl != 0)
+				if (yu != 0) // x / [y .. 0 .. y]
+					return Double.POSITIVE_INFINITY;
+				else // x / [y, 0]
+					return xu < 0 || xl < 0 ? Double.POSITIVE_INFINITY : div_hi(xl, yl);
+			else
+				if (yu != 0) // x / [0, y]
+					return xu < 0 ? div_hi(xu, yu) : Double.POSITIVE_INFINITY;
+				else // x/ [0, 0]
+					throw new IAComputationalException("Division by Zero");
+		}
+		if (xu < 0)
+			return yu < 0 ? div_hi(xl, yu) : div_hi(xu, yu);
+		else if (xl < 0)
+			return yu < 0 ? div_hi(xl, yu) : div_hi(xu, yl);
+		else
+			return yu < 0 ? div_hi(xl, yl) : div_hi(xu, yl);
+	}
+
+	// interval operations, as the ones of IAMath
+
+	public final RealInterval add(RealInterval x, RealInterval y) {
+		return new RealInterval(add_lo(x.lo, y.lo), add_hi(x.hi, y.hi));
+	}
+
+	public final RealInterval sub(RealInterval x, RealInterval y) {
+		return new RealInterval(sub_lo(x.lo, y.hi), sub_hi(x.hi, y.lo));
+	}
+
+	public final RealInterval mul(RealInterval x, RealInterval y) {
+		return new RealInterval(mul_lo(x.lo, x.hi, y.lo, y.hi), mul_hi(x.lo, x.hi, y.lo, y.hi));
+	}
+
+	public final RealInterval div(RealInterval x, RealInterval y) throws IAComputationalException {
+		return new RealInterval(div_lo(x.lo, x.hi, y.lo, y.hi), div_hi(x.lo, x.hi, y.lo, y.hi));
+	}
+
+	/*
+	 * Bulk operations: res[i] = x[i] op y[i], res may be x or y itself.
+	 */
+	public final void add(IntervalVector x, IntervalVector y, IntervalVector res) {
+		checkSizes(x, y, res);
+		final double[] xl = x.lo, xu = x.hi, yl = y.lo, yu = y.hi;
+		final double[] rl = res.lo, ru = res.hi;
+		for (int i = 0; i < rl.length; i++) {
+			rl[i] = add_lo(xl[i], yl[i]);
+			ru[i] = add_hi(xu[i], yu[i]);
+		}
+	}
+
+	public final void sub(IntervalVector x, IntervalVector y, IntervalVector res) {
+		checkSizes(x, y, res);
+		final double[] xl = x.lo, xu = x.hi, yl = y.lo, yu = y.hi;
+		final double[] rl = res.lo, ru = res.hi;
+		for (int i = 0; i < rl.length; i++) {
+			double l = sub_lo(xl[i], yu[i]);
+			ru[i] = sub_hi(xu[i], yl[i]);
+			rl[i] = l;
+		}
+	}
+
+	public final void mul(IntervalVector x, IntervalVector y, IntervalVector res) {
+		checkSizes(x, y, res);
+		final double[] xl = x.lo, xu = x.hi, yl = y.lo, yu = y.hi;
+		final double[] rl = res.lo, ru = res.hi;
+		for (int i = 0; i < rl.length; i++) {
+			double a = xl[i], b = xu[i], c = yl[i], d = yu[i];
+			rl[i] = mul_lo(a, b, c, d);
+			ru[i] = mul_hi(a, b, c, d);
+		}
+	}
+
+	public final void div(IntervalVector x, IntervalVector y, IntervalVector res) throws IAComputationalException {
+		checkSizes(x, y, res);
+		final double[] xl = x.lo, xu = x.hi, yl = y.lo, yu = y.hi;
+		final double[] rl = res.lo, ru = res.hi;
+		for (int i = 0; i < rl.length; i++) {
+			double a = xl[i], b = xu[i], c = yl[i], d = yu[i];
+			rl[i] = div_lo(a, b, c, d);
+			ru[i] = div_hi(a, b, c, d);
+		}
+	}
+
+	private static final class Outward extends RoundingPolicy {
+		public boolean isRigorous() {
+			return true;
+		}
+		public double add_lo(double x, double y) {
+			return RMath.down(x + y);
+		}
+		public double add_hi(double x, double y) {
+			return RMath.up(x + y);
+		}
+		public double sub_lo(double x, double y) {
+			return RMath.down(x - y);
+		}
+		public double sub_hi(double x, double y) {
+			return RMath.up(x - y);
+		}
+		public double mul_lo(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			return RMath.down(x * y);
+		}
+		public double mul_hi(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			return RMath.up(x * y);
+		}
+		public double div_lo(double x, double y) {
+			if (x == 0.0) return 0.0;
+			return RMath.down(x / y);
+		}
+		public double div_hi(double x, double y) {
+			if (x == 0.0) return 0.0;
+			return RMath.up(x / y);
+		}
+		@Override
+		public String toString() {
+			return "OUTWARD";
+		}
+	}
+
+	/*
+	 * The rounding errors come from RMath.add_err/mul_err/div_rem.
+	 * A lower bound is moved down only if the exact result is below the
+	 * rounded one, an upper bound up only if it is above. A NaN error
+	 * (overflow, infinite operands) moves both. Products and quotients
+	 * below 2^-969 may have lost bits to underflow which the fma can not
+	 * see, so they are always moved.
+	 */
+	private static final class Tight extends RoundingPolicy {
+		private static final double TINY = 0x1p-969;
+
+		public boolean isRigorous() {
+			return true;
+		}
+		public double add_lo(double x, double y) {
+			double s = x + y;
+			return RMath.add_err(x, y, s) >= 0 ? s : RMath.down(s);
+		}
+		public double add_hi(double x, double y) {
+			double s = x + y;
+			return RMath.add_err(x, y, s) <= 0 ? s : RMath.up(s);
+		}
+		public double sub_lo(double x, double y) {
+			double s = x - y;
+			return RMath.add_err(x, -y, s) >= 0 ? s : RMath.down(s);
+		}
+		public double sub_hi(double x, double y) {
+			double s = x - y;
+			return RMath.add_err(x, -y, s) <= 0 ? s : RMath.up(s);
+		}
+		public double mul_lo(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			double p = x * y;
+			return Math.abs(p) >= TINY && RMath.mul_err(x, y, p) >= 0 ? p : RMath.down(p);
+		}
+		public double mul_hi(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			double p = x * y;
+			return Math.abs(p) >= TINY && RMath.mul_err(x, y, p) <= 0 ? p : RMath.up(p);
+		}
+		public double div_lo(double x, double y) {
+			if (x == 0.0) return 0.0;
+			double q = x / y;
+			return isNormal(x, q) && quotientErr(x, y, q) >= 0 ? q : RMath.down(q);
+		}
+		public double div_hi(double x, double y) {
+			if (x == 0.0) return 0.0;
+			double q = x / y;
+			return isNormal(x, q) && quotientErr(x, y, q) <= 0 ? q : RMath.up(q);
+		}
+
+		private static boolean isNormal(double x, double q) {
+			return Math.abs(x) >= TINY && Math.abs(q) >= TINY;
+		}
+		// has the sign of x/y - q
+		private static double quotientErr(double x, double y, double q) {
+			double r = RMath.div_rem(x, y, q);
+			return y < 0 ? -r : r;
+		}
+		@Override
+		public String toString() {
+			return "TIGHT";
+		}
+	}
+
+	private static final class None extends RoundingPolicy {
+		public boolean isRigorous() {
+			return false;
+		}
+		public double add_lo(double x, double y) {
+			return x + y;
+		}
+		public double add_hi(double x, double y) {
+			return x + y;
+		}
+		public double sub_lo(double x, double y) {
+			return x - y;
+		}
+		public double sub_hi(double x, double y) {
+			return x - y;
+		}
+		public double mul_lo(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			return x * y;
+		}
+		public double mul_hi(double x, double y) {
+			if (x == 0.0 || y == 0.0) return 0.0;
+			return x * y;
+		}
+		public double div_lo(double x, double y) {
+			if (x == 0.0) return 0.0;
+			return x / y;
+		}
+		public double div_hi(double x, double y) {
+			if (x == 0.0) return 0.0;
+			return x / y;
+		}
+		@Override
+		public String toString() {
+			return "NONE";
+		}
+	}
+
+	private static final class Global extends RoundingPolicy {
+		public boolean isRigorous() {
+			return !RMath.simpleRounding;
+		}
+		public double add_lo(double x, double y) {
+			return RMath.add_lo(x, y);
+		}
+		public double add_hi(double x, double y) {
+			return RMath.add_hi(x, y);
+		}
+		public double sub_lo(double x, double y) {
+			return RMath.sub_lo(x, y);
+		}
+		public double sub_hi(double x, double y) {
+			return RMath.sub_hi(x, y);
+		}
+		public double mul_lo(double x, double y) {
+			return RMath.mul_lo(x, y);
+		}
+		public double mul_hi(double x, double y) {
+			return RMath.mul_hi(x, y);
+		}
+		public double div_lo(double x, double y) {
+			return RMath.div_lo(x, y);
+		}
+		public double div_hi(double x, double y) {
+			return RMath.div_hi(x, y);
+		}
+		@Override
+		public String toString() {
+			return "GLOBAL";
+		}
+	}
+}
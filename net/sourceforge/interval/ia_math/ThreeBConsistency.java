@@ -0,0 +1,73 @@
+package net.sourceforge.interval.ia_math;
+
+/**
+ * ThreeBConsistency (3B consistency) shaves the domains of a
+ * Propagator network: a slice at a bound of a domain, a fraction of
+ * its width, is tried by propagating the network with the domain
+ * restricted to it, and if that fails the slice is cut off.
+ * <p>
+ * The slices are tried at both bounds of every variable until a whole
+ * pass shaves nothing, or the budget of propagations runs out. Each
+ * trial is pushed and popped on the Propagator, so it leaves the
+ * domains as they were. Unbounded domains are not shaved.
+ */
+public class ThreeBConsistency {
+
+	private final Propagator propagator;
+	private final double slice;
+	private final int maxPropagations;
+
+	/**
+	 * @param slice the width of a slice, a fraction of the domain width
+	 * @param maxPropagations the budget of trial propagations of one
+	 *        contract()
+	 */
+	public ThreeBConsistency(Propagator propagator, double slice, int maxPropagations) {
+		if (!(slice > 0 && slice < 1))
+			throw new IllegalArgumentException("ThreeBConsistency(slice=" + slice + "): must have 0<slice<1");
+		if (maxPropagations < 0)
+			throw new IllegalArgumentException("ThreeBConsistency(maxPropagations=" + maxPropagations
+					+ "): must have maxPropagations>=0");
+		this.propagator = propagator;
+		this.slice = slice;
+		this.maxPropagations = maxPropagations;
+	}
+
+	/**
+	 * propagates the network and shaves its domains
+	 *
+	 * @return EMPTY if the network has no solution in the domains
+	 */
+	public NarrowingStatus contract() {
+		NarrowingStatus s = propagator.propagate();
+		if (s == NarrowingStatus.EMPTY)
+			return s;
+		boolean narrowed = s == NarrowingStatus.NARROWED;
+		int budget = maxPropagations;
+		boolean shaved = true;
+		while (shaved && budget > 0) {
+			shaved = false;
+			for (int v = 0; v < propagator.size() && budget > 0; v++)
+				for (int side = 0; side < 2 && budget > 0; side++) {
+					RealInterval d = propagator.domain(v);
+					if (!(d.wid() < Double.POSITIVE_INFINITY))
+						break;
+					double cut = side == 0 ? d.lo + slice * d.wid() : d.hi - slice * d.wid();
+					if (!(cut > d.lo && cut < d.hi))
+						break;
+					budget--;
+					propagator.push();
+					propagator.setDomain(v, side == 0 ? new RealInterval(d.lo, cut) : new RealInterval(cut, d.hi));
+					NarrowingStatus t = propagator.propagate();
+					propagator.pop();
+					if (t != NarrowingStatus.EMPTY)
+						continue;
+					propagator.setDomain(v, side == 0 ? new RealInterval(cut, d.hi) : new RealInterval(d.lo, cut));
+					if (propagator.propagate() == NarrowingStatus.EMPTY)
+						return NarrowingStatus.EMPTY;
+					narrowed = shaved = true;
+				}
+		}
+		return narrowed ? NarrowingStatus.NARROWED : NarrowingStatus.UNCHANGED;
+	}
+}